@@ -0,0 +1,253 @@
+package com.robot.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * 单个大CSV文件的并行读取：把文件映射到内存，按记录边界切成多段，各段在线程池中并行解析。
+ * <p>
+ * 切分分两步：先并行统计每段的引号数，并记录段内第一个引号数为偶数、奇数时的换行位置；再按前面各段引号数的奇偶
+ * 判断每段开头是否在引号内，选出段内第一个不在引号内的换行作为记录边界。整段都在一条记录内的段并入前一段。
+ * 换行符在UTF-8中不会出现在多字节字符内部，按字节切分不会截断字符。
+ * <p>
+ * 文件必须符合RFC 4180：字段中的双引号写成两个双引号，成对出现，不影响奇偶。反斜杠不是转义符，
+ * 因此各段用{@link CsvRowIterator}或{@link CsvTypedReader}按同样的规则解析，不能用opencsv默认的CSVParser。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+class CsvChunkReader {
+
+    private static final byte QUOTE = '"';
+    private static final byte LF = '\n';
+
+    private CsvChunkReader() {
+    }
+
+    /**
+     * @param file          CSV文件
+     * @param executor      解析线程池
+     * @param parallelism   同时解析的段数，也是内存中最多保留的已解析段数
+     * @param chunkBytes    每段的大致字节数
+     * @param ordered       为true时按文件中的顺序交给batchConsumer，否则按解析完成的顺序
+     * @param parser        解析一段
+     * @param batchConsumer 每段解析出的结果，在调用线程中执行
+     * @return 读取结果
+     */
+    static <T> CsvIngestResult read(Path file, Executor executor, int parallelism, int chunkBytes, boolean ordered,
+                                    ChunkParser<T> parser, Consumer<List<T>> batchConsumer) throws IOException {
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<long[]> chunks = split(channel, size, chunkBytes, executor);
+            long rowCount = 0;
+            BlockingQueue<Object[]> completed = new LinkedBlockingQueue<>();
+            List<CompletableFuture<List<T>>> running = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+            int submitted = 0;
+            int delivered = 0;
+            try {
+                while (delivered < chunks.size()) {
+                    // 保持最多parallelism段在解析或等待交付
+                    while (submitted < chunks.size() && submitted - delivered < parallelism) {
+                        long[] chunk = chunks.get(submitted);
+                        int index = submitted++;
+                        CompletableFuture<List<T>> future = CompletableFuture.supplyAsync(() -> parse(channel, chunk[0], chunk[1], index == 0, parser), executor);
+                        running.set(index, future);
+                        future.whenComplete((rows, e) -> completed.add(new Object[]{index, rows, e}));
+                    }
+                    List<T> rows;
+                    if (ordered) {
+                        rows = running.get(delivered).join();
+                        running.set(delivered, null);
+                    } else {
+                        Object[] result = completed.take();
+                        if (result[2] != null) {
+                            throw (Throwable) result[2];
+                        }
+                        running.set((int) result[0], null);
+                        @SuppressWarnings("unchecked")
+                        List<T> parsed = (List<T>) result[1];
+                        rows = parsed;
+                    }
+                    delivered++;
+                    rowCount += rows.size();
+                    batchConsumer.accept(rows);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("读取CSV文件被中断", e);
+            } catch (Throwable e) {
+                throw unwrap(e);
+            } finally {
+                running.stream().filter(future -> future != null).forEach(future -> future.cancel(true));
+            }
+            return new CsvIngestResult(1, Collections.emptyMap(), rowCount, size, System.currentTimeMillis() - start, null);
+        }
+    }
+
+    /**
+     * 按行解析为字符串数组
+     */
+    static List<String[]> parseRows(Reader reader, boolean first) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CsvRowIterator iterator = new CsvRowIterator(reader, null)) {
+            iterator.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+
+    private static RuntimeException unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RuntimeException("读取CSV数据异常", cause);
+    }
+
+    /**
+     * 按记录边界切分文件
+     *
+     * @return 每段的{起始位置, 结束位置}
+     */
+    static List<long[]> split(FileChannel channel, long size, int chunkBytes, Executor executor) {
+        int count = (int) Math.max(1, (size + chunkBytes - 1) / chunkBytes);
+        List<CompletableFuture<long[]>> scans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long from = (long) i * chunkBytes;
+            long to = Math.min(size, from + chunkBytes);
+            scans.add(CompletableFuture.supplyAsync(() -> scan(channel, from, to), executor));
+        }
+        List<long[]> chunks = new ArrayList<>();
+        long chunkStart = 0;
+        long quotes = 0;
+        for (int i = 0; i < count; i++) {
+            long[] scan;
+            try {
+                scan = scans.get(i).join();
+            } catch (CompletionException e) {
+                throw unwrap(e.getCause());
+            }
+            if (i > 0) {
+                // 前面各段引号数为偶数时本段开头不在引号内
+                long boundary = quotes % 2 == 0 ? scan[1] : scan[2];
+                if (boundary >= 0 && boundary > chunkStart) {
+                    chunks.add(new long[]{chunkStart, boundary});
+                    chunkStart = boundary;
+                }
+            }
+            quotes += scan[0];
+        }
+        if (size > chunkStart) {
+            chunks.add(new long[]{chunkStart, size});
+        }
+        return chunks;
+    }
+
+    /**
+     * 统计[from, to)中的引号数
+     *
+     * @return {引号数, 段内引号数为偶数时第一个换行之后的位置, 段内引号数为奇数时第一个换行之后的位置}，没有时为-1
+     */
+    private static long[] scan(FileChannel channel, long from, long to) {
+        MappedByteBuffer buffer = map(channel, from, to);
+        long quotes = 0;
+        long evenBoundary = -1;
+        long oddBoundary = -1;
+        for (int i = 0, length = buffer.limit(); i < length; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                quotes++;
+            } else if (b == LF) {
+                if ((quotes & 1) == 0) {
+                    if (evenBoundary < 0) {
+                        evenBoundary = from + i + 1;
+                    }
+                } else if (oddBoundary < 0) {
+                    oddBoundary = from + i + 1;
+                }
+            }
+        }
+        return new long[]{quotes, evenBoundary, oddBoundary};
+    }
+
+    private static <T> List<T> parse(FileChannel channel, long from, long to, boolean first, ChunkParser<T> parser) {
+        try {
+            return parser.parse(new InputStreamReader(new ByteBufferInputStream(map(channel, from, to)), StandardCharsets.UTF_8), first);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件异常", e);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException("映射文件异常", e);
+        }
+    }
+
+    /**
+     * 解析文件中的一段
+     */
+    @FunctionalInterface
+    interface ChunkParser<T> {
+        /**
+         * @param reader 该段的内容，解析完成后由解析方关闭
+         * @param first  是否是文件的第一段，只有第一段可能有标题
+         * @return 解析结果，作为一批交给batchConsumer
+         */
+        List<T> parse(Reader reader, boolean first) throws IOException;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
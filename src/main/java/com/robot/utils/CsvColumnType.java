@@ -0,0 +1,27 @@
+package com.robot.utils;
+
+/**
+ * {@link CsvSchema}中列的类型。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public enum CsvColumnType {
+    /**
+     * 整数，存为long
+     */
+    LONG,
+    /**
+     * 小数，存为double
+     */
+    DOUBLE,
+    /**
+     * 时间，存为毫秒时间戳(long)。字段可以是毫秒数，或 yyyy-MM-dd HH:mm:ss[.SSS] 格式的时间(日期和时间之间也可以是T)，
+     * 按{@link CsvSchema#getZone()}时区转换
+     */
+    EPOCH_MILLIS,
+    /**
+     * 字符串
+     */
+    STRING
+}
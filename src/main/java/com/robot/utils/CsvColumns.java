@@ -0,0 +1,136 @@
+package com.robot.utils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 按{@link CsvSchema}列式读取的数据：每列一个数组，LONG、EPOCH_MILLIS列为long[]，DOUBLE列为double[]，STRING列为String[]，
+ * 数组长度等于行数。空字段的取值与{@link CsvRow}相同，可以用{@link #isNull(String, int)}区分。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class CsvColumns {
+
+    private final CsvSchema schema;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final String[][] strings;
+    private final BitSet[] nulls;
+    private int rowCount;
+    private int capacity;
+
+    CsvColumns(CsvSchema schema, int capacity) {
+        this.schema = schema;
+        this.capacity = capacity;
+        int count = schema.getColumnCount();
+        this.longs = new long[count][];
+        this.doubles = new double[count][];
+        this.strings = new String[count][];
+        this.nulls = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            switch (schema.getType(i)) {
+                case LONG:
+                case EPOCH_MILLIS:
+                    longs[i] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles[i] = new double[capacity];
+                    break;
+                default:
+                    strings[i] = new String[capacity];
+            }
+            nulls[i] = new BitSet();
+        }
+    }
+
+    // 追加一行，容量不足时翻倍
+    void add(CsvRow row) {
+        if (rowCount == capacity) {
+            resize(Math.max(16, capacity * 2));
+        }
+        for (int i = 0; i < longs.length; i++) {
+            if (longs[i] != null) {
+                longs[i][rowCount] = row.longs[i];
+            } else if (doubles[i] != null) {
+                doubles[i][rowCount] = row.doubles[i];
+            } else {
+                strings[i][rowCount] = row.strings[i];
+            }
+            if (row.nulls[i]) {
+                nulls[i].set(rowCount);
+            }
+        }
+        rowCount++;
+    }
+
+    // 读取完成后把数组截到行数
+    CsvColumns trim() {
+        if (rowCount != capacity) {
+            resize(rowCount);
+        }
+        return this;
+    }
+
+    private void resize(int newCapacity) {
+        for (int i = 0; i < longs.length; i++) {
+            if (longs[i] != null) {
+                longs[i] = Arrays.copyOf(longs[i], newCapacity);
+            } else if (doubles[i] != null) {
+                doubles[i] = Arrays.copyOf(doubles[i], newCapacity);
+            } else {
+                strings[i] = Arrays.copyOf(strings[i], newCapacity);
+            }
+        }
+        capacity = newCapacity;
+    }
+
+    public CsvSchema getSchema() {
+        return schema;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return LONG或EPOCH_MILLIS列的数据
+     */
+    public long[] getLongs(String name) {
+        return column(longs, name, "long");
+    }
+
+    /**
+     * @return DOUBLE列的数据
+     */
+    public double[] getDoubles(String name) {
+        return column(doubles, name, "double");
+    }
+
+    /**
+     * @return STRING列的数据
+     */
+    public String[] getStrings(String name) {
+        return column(strings, name, "string");
+    }
+
+    /**
+     * @return 第row行该列的字段是否为空
+     */
+    public boolean isNull(String name, int row) {
+        return nulls[schema.indexOf(name)].get(row);
+    }
+
+    private <A> A column(A[] columns, String name, String expected) {
+        int index = schema.indexOf(name);
+        if (columns[index] == null) {
+            throw new IllegalArgumentException(String.format("column %s is %s, not %s", name, schema.getType(index), expected));
+        }
+        return columns[index];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CsvColumns{columns=%d, rows=%d}", schema.getColumnCount(), rowCount);
+    }
+}
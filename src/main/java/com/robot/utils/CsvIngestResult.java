@@ -0,0 +1,100 @@
+package com.robot.utils;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多个CSV文件并行读取的结果。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class CsvIngestResult {
+
+    /**
+     * 匹配的文件数
+     */
+    private final int fileCount;
+    /**
+     * 读取失败的文件及异常，按文件名排序
+     */
+    private final Map<File, Exception> errors;
+    /**
+     * 成功读取的行数，不包括失败文件中已读取的行
+     */
+    private final long rowCount;
+    /**
+     * 成功读取的文件字节数
+     */
+    private final long byteCount;
+    /**
+     * 耗时(毫秒)
+     */
+    private final long elapsedMillis;
+    /**
+     * 每个成功文件的全部行，只有transformAllCSV会返回，其他方式为null
+     */
+    private final List<List<String[]>> data;
+
+    CsvIngestResult(int fileCount, Map<File, Exception> errors, long rowCount, long byteCount, long elapsedMillis, List<List<String[]>> data) {
+        this.fileCount = fileCount;
+        this.errors = errors;
+        this.rowCount = rowCount;
+        this.byteCount = byteCount;
+        this.elapsedMillis = elapsedMillis;
+        this.data = data;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getSuccessCount() {
+        return fileCount - errors.size();
+    }
+
+    public int getFailedCount() {
+        return errors.size();
+    }
+
+    public Map<File, Exception> getErrors() {
+        return errors;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return 每秒读取的行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowCount : rowCount * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * @return 每秒读取的字节数
+     */
+    public double getBytesPerSecond() {
+        return elapsedMillis == 0 ? byteCount : byteCount * 1000.0 / elapsedMillis;
+    }
+
+    public List<List<String[]>> getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CsvIngestResult{files=%d, failed=%d, rows=%d, bytes=%d, elapsedMillis=%d, rows/s=%.0f, MB/s=%.1f}",
+                fileCount, errors.size(), rowCount, byteCount, elapsedMillis, getRowsPerSecond(), getBytesPerSecond() / 1024 / 1024);
+    }
+}
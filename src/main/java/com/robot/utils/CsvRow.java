@@ -0,0 +1,101 @@
+package com.robot.utils;
+
+/**
+ * 按{@link CsvSchema}解析的一行，数值以基本类型保存。读取每一行时复用同一个对象，不能保留。
+ * <p>
+ * 空字段：LONG、EPOCH_MILLIS列为0，DOUBLE列为NaN，STRING列为空字符串，{@link #isNull(int)}返回true。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class CsvRow {
+
+    private final CsvSchema schema;
+    final long[] longs;
+    final double[] doubles;
+    final String[] strings;
+    final boolean[] nulls;
+    long rowNumber;
+
+    CsvRow(CsvSchema schema) {
+        this.schema = schema;
+        int count = schema.getColumnCount();
+        this.longs = new long[count];
+        this.doubles = new double[count];
+        this.strings = new String[count];
+        this.nulls = new boolean[count];
+    }
+
+    public CsvSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return 数据行的序号，从0开始，不包括标题
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @param column LONG或EPOCH_MILLIS列的位置
+     */
+    public long getLong(int column) {
+        CsvColumnType type = schema.getType(column);
+        if (type != CsvColumnType.LONG && type != CsvColumnType.EPOCH_MILLIS) {
+            throw typeMismatch(column, "long");
+        }
+        return longs[column];
+    }
+
+    public long getLong(String name) {
+        return getLong(schema.indexOf(name));
+    }
+
+    /**
+     * @param column DOUBLE或LONG列的位置
+     */
+    public double getDouble(int column) {
+        CsvColumnType type = schema.getType(column);
+        if (type == CsvColumnType.LONG) {
+            return nulls[column] ? Double.NaN : longs[column];
+        }
+        if (type != CsvColumnType.DOUBLE) {
+            throw typeMismatch(column, "double");
+        }
+        return doubles[column];
+    }
+
+    public double getDouble(String name) {
+        return getDouble(schema.indexOf(name));
+    }
+
+    /**
+     * @param column STRING列的位置
+     */
+    public String getString(int column) {
+        if (schema.getType(column) != CsvColumnType.STRING) {
+            throw typeMismatch(column, "string");
+        }
+        return strings[column];
+    }
+
+    public String getString(String name) {
+        return getString(schema.indexOf(name));
+    }
+
+    /**
+     * @return 字段是否为空
+     */
+    public boolean isNull(int column) {
+        return nulls[column];
+    }
+
+    public boolean isNull(String name) {
+        return isNull(schema.indexOf(name));
+    }
+
+    private IllegalArgumentException typeMismatch(int column, String expected) {
+        return new IllegalArgumentException(String.format("column %s is %s, not %s", schema.getName(column), schema.getType(column), expected));
+    }
+}
@@ -0,0 +1,123 @@
+package com.robot.utils;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180ParserBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 逐行读取CSV的迭代器，只在内存中保留当前一行，支持带引号的字段。
+ * 按RFC 4180解析，与{@link CsvWriter}一致：带引号的字段中两个双引号表示一个双引号，反斜杠是普通字符，
+ * 不使用opencsv默认CSVParser的反斜杠转义。用完后必须调用{@link #close()}，关闭底层流并执行关闭回调。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+class CsvRowIterator implements Iterator<String[]>, Closeable {
+
+    private final CSVReader reader;
+    private final Closeable onClose;
+    private String[] nextRow;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * @param reader  字符输入流
+     * @param onClose 关闭时在关闭reader之后执行，可以为null
+     */
+    CsvRowIterator(Reader reader, Closeable onClose) {
+        this.reader = newReader(reader);
+        this.onClose = onClose;
+    }
+
+    /**
+     * 按RFC 4180解析的CSVReader，CsvUtils中的读取方法都使用这种解析方式
+     */
+    static CSVReader newReader(Reader reader) {
+        // 默认的verifyReader在读取出错时当作已读完，关闭后才能让IO异常抛出
+        return new CSVReaderBuilder(reader)
+                .withCSVParser(new RFC4180ParserBuilder().build())
+                .withVerifyReader(false)
+                .build();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow != null) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        try {
+            nextRow = reader.readNext();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件异常", e);
+        } catch (CsvValidationException e) {
+            throw new RuntimeException("读取CSV数据异常", e);
+        }
+        if (nextRow == null) {
+            finished = true;
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public String[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String[] row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    /**
+     * @return 是否已读到文件末尾
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 转换为顺序流，关闭流时关闭本迭代器。
+     *
+     * @return 行数据流
+     */
+    Stream<String[]> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } finally {
+            if (onClose != null) {
+                onClose.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.robot.utils;
+
+/**
+ * 把按{@link CsvSchema}解析的一行转换为对象。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+@FunctionalInterface
+public interface CsvRowMapper<T> {
+
+    /**
+     * @param row 当前行，读取下一行时会被复用，不能保留
+     * @return 转换后的对象
+     */
+    T map(CsvRow row);
+}
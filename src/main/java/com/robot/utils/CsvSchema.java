@@ -0,0 +1,145 @@
+package com.robot.utils;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * CSV各列的名称和类型，用于按类型读取CSV：数值列只解析一次，直接存为基本类型，不为每个字段创建字符串。
+ * 列按位置与CSV中的字段对应，CSV中多出的字段被忽略，缺少的字段视为空。
+ *
+ * <pre>
+ * CsvSchema schema = CsvSchema.newBuilder()
+ *         .skipHeader()
+ *         .column("robotId", CsvColumnType.LONG)
+ *         .column("time", CsvColumnType.EPOCH_MILLIS)
+ *         .column("temperature", CsvColumnType.DOUBLE)
+ *         .build();
+ * </pre>
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class CsvSchema {
+
+    private final String[] names;
+    private final CsvColumnType[] types;
+    private final Map<String, Integer> indexes;
+    private final boolean skipHeader;
+    private final ZoneId zone;
+
+    private CsvSchema(Builder builder) {
+        this.names = builder.names.toArray(new String[0]);
+        this.types = builder.types.toArray(new CsvColumnType[0]);
+        this.indexes = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            indexes.put(names[i], i);
+        }
+        this.skipHeader = builder.skipHeader;
+        this.zone = builder.zone;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    public String getName(int column) {
+        return names[column];
+    }
+
+    public CsvColumnType getType(int column) {
+        return types[column];
+    }
+
+    /**
+     * @return 列的位置
+     * @throws IllegalArgumentException 没有该列
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("no column named " + name);
+        }
+        return index;
+    }
+
+    /**
+     * @return 是否跳过第一行标题
+     */
+    public boolean isSkipHeader() {
+        return skipHeader;
+    }
+
+    /**
+     * @return EPOCH_MILLIS列中日期时间格式字段的时区
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("CsvSchema{");
+        for (int i = 0; i < names.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(names[i]).append(':').append(types[i]);
+        }
+        return builder.append(", skipHeader=").append(skipHeader).append(", zone=").append(zone).append('}').toString();
+    }
+
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<CsvColumnType> types = new ArrayList<>();
+        private boolean skipHeader;
+        private ZoneId zone = ZoneId.systemDefault();
+
+        private Builder() {
+        }
+
+        /**
+         * 按顺序添加一列
+         *
+         * @param name 列名，不能重复
+         * @param type 列的类型
+         */
+        public Builder column(String name, CsvColumnType type) {
+            Objects.requireNonNull(name, "name can't be null");
+            Objects.requireNonNull(type, "type can't be null");
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("duplicate column " + name);
+            }
+            names.add(name);
+            types.add(type);
+            return this;
+        }
+
+        /**
+         * 跳过第一行标题
+         */
+        public Builder skipHeader() {
+            this.skipHeader = true;
+            return this;
+        }
+
+        /**
+         * EPOCH_MILLIS列中日期时间格式字段的时区，默认为系统时区
+         */
+        public Builder zone(ZoneId zone) {
+            this.zone = Objects.requireNonNull(zone, "zone can't be null");
+            return this;
+        }
+
+        public CsvSchema build() {
+            if (names.isEmpty()) {
+                throw new IllegalStateException("schema has no column");
+            }
+            return new CsvSchema(this);
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.robot.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * 按{@link CsvSchema}逐行解析CSV。字段先复制到可复用的字符缓冲区，数值直接从字符解析，只有STRING列创建字符串。
+ * 支持带引号的字段，按RFC 4180解析，与{@link CsvRowIterator}相同，空行被跳过，开头的UTF-8 BOM被去掉。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+class CsvTypedReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int END_OF_FIELD = 0;
+    private static final int END_OF_RECORD = 1;
+    private static final int END_OF_FILE = 2;
+    private static final long DAYS_0000_TO_1970 = 719528L;
+    /**
+     * 1e0到1e22都能用double精确表示
+     */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final Reader reader;
+    private final CsvSchema schema;
+    private final CsvColumnType[] types;
+    private final ZoneRules zoneRules;
+    /**
+     * 时区为固定偏移时的偏移秒数，否则按时区规则转换
+     */
+    private final Integer fixedOffsetSeconds;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private char[] field = new char[64];
+    private int fieldLength;
+    private boolean fieldQuoted;
+    private long recordNumber;
+    private long rowNumber;
+    private boolean headerSkipped;
+    private boolean bomChecked;
+
+    CsvTypedReader(Reader reader, CsvSchema schema) {
+        this(reader, schema, schema.isSkipHeader());
+    }
+
+    /**
+     * @param skipHeader 是否跳过第一行，并行读取时只有第一段跳过标题
+     */
+    CsvTypedReader(Reader reader, CsvSchema schema, boolean skipHeader) {
+        this.reader = reader;
+        this.schema = schema;
+        this.types = new CsvColumnType[schema.getColumnCount()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = schema.getType(i);
+        }
+        ZoneId zone = schema.getZone();
+        this.zoneRules = zone.getRules();
+        this.fixedOffsetSeconds = zoneRules.isFixedOffset() ? zoneRules.getOffset(Instant.EPOCH).getTotalSeconds() : null;
+        this.headerSkipped = !skipHeader;
+    }
+
+    /**
+     * 解析下一行到row
+     *
+     * @return 没有更多行时为false
+     */
+    boolean next(CsvRow row) throws IOException {
+        if (!headerSkipped) {
+            headerSkipped = true;
+            if (!skipRecord()) {
+                return false;
+            }
+        }
+        while (true) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            recordNumber++;
+            int column = 0;
+            int end;
+            do {
+                end = readField();
+                if (column == 0 && end != END_OF_FIELD && fieldLength == 0 && !fieldQuoted) {
+                    // 空行
+                    break;
+                }
+                if (column < types.length) {
+                    store(row, column);
+                }
+                column++;
+            } while (end == END_OF_FIELD);
+            if (column == 0) {
+                if (end == END_OF_FILE) {
+                    return false;
+                }
+                continue;
+            }
+            for (; column < types.length; column++) {
+                fieldLength = 0;
+                store(row, column);
+            }
+            row.rowNumber = rowNumber++;
+            return true;
+        }
+    }
+
+    private boolean skipRecord() throws IOException {
+        if (position == limit && !fill()) {
+            return false;
+        }
+        recordNumber++;
+        while (readField() == END_OF_FIELD) {
+            // 跳过标题的每个字段
+        }
+        return true;
+    }
+
+    private void store(CsvRow row, int column) {
+        boolean empty = fieldLength == 0;
+        row.nulls[column] = empty;
+        try {
+            switch (types[column]) {
+                case LONG:
+                    row.longs[column] = empty ? 0 : parseLong(field, 0, fieldLength);
+                    break;
+                case DOUBLE:
+                    row.doubles[column] = empty ? Double.NaN : parseDouble(field, 0, fieldLength);
+                    break;
+                case EPOCH_MILLIS:
+                    row.longs[column] = empty ? 0 : parseEpochMillis(field, 0, fieldLength);
+                    break;
+                default:
+                    row.strings[column] = empty ? "" : new String(field, 0, fieldLength);
+            }
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(String.format("读取CSV数据异常: 第%d条记录的%s列<%s>不是%s",
+                    recordNumber, schema.getName(column), new String(field, 0, fieldLength), types[column]), e);
+        }
+    }
+
+    /**
+     * 读取一个字段到field
+     *
+     * @return 字段后是逗号、换行还是文件结束
+     */
+    private int readField() throws IOException {
+        fieldLength = 0;
+        fieldQuoted = false;
+        int c = read();
+        if (c == '"') {
+            fieldQuoted = true;
+            while (true) {
+                c = read();
+                if (c < 0) {
+                    throw new RuntimeException(String.format("读取CSV数据异常: 第%d条记录的引号没有结束", recordNumber));
+                }
+                if (c == '"') {
+                    if (peek() != '"') {
+                        break;
+                    }
+                    read();
+                }
+                append((char) c);
+            }
+            // 结束引号之后到分隔符之前的内容照原样保留
+            c = read();
+        }
+        while (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+            append((char) c);
+            c = read();
+        }
+        if (c == ',') {
+            return END_OF_FIELD;
+        }
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        return c < 0 ? END_OF_FILE : END_OF_RECORD;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(n, 0);
+        if (!bomChecked && n > 0) {
+            bomChecked = true;
+            // 开头的UTF-8 BOM不属于第一个字段
+            if (buffer[0] == '\uFEFF') {
+                position = 1;
+                return position < limit || fill();
+            }
+        }
+        return n > 0;
+    }
+
+    private void append(char c) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * 解析十进制整数，允许前后有空格
+     */
+    static long parseLong(char[] chars, int from, int to) {
+        while (from < to && chars[from] == ' ') {
+            from++;
+        }
+        while (to > from && chars[to - 1] == ' ') {
+            to--;
+        }
+        if (from == to) {
+            throw new NumberFormatException("empty");
+        }
+        boolean negative = chars[from] == '-';
+        int i = negative || chars[from] == '+' ? from + 1 : from;
+        if (i == to) {
+            throw new NumberFormatException("no digits");
+        }
+        // 与Long.parseLong相同，按负数累加以容纳Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("invalid digit");
+            }
+            if (result < multiplyLimit) {
+                throw new NumberFormatException("overflow");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("overflow");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 解析小数，允许前后有空格。有效数字不超过15位且指数不超过22时直接计算，结果与Double.parseDouble相同；
+     * 其他情况交给Double.parseDouble
+     */
+    static double parseDouble(char[] chars, int from, int to) {
+        while (from < to && chars[from] == ' ') {
+            from++;
+        }
+        while (to > from && chars[to - 1] == ' ') {
+            to--;
+        }
+        int i = from;
+        boolean negative = false;
+        if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        for (; i < to; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa != 0 || c != '0') {
+                    significantDigits++;
+                }
+                if (significantDigits > 15) {
+                    return slowParseDouble(chars, from, to);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return slowParseDouble(chars, from, to);
+        }
+        if (i < to) {
+            if (chars[i] != 'e' && chars[i] != 'E') {
+                return slowParseDouble(chars, from, to);
+            }
+            // 指数只能是可选的符号加数字，中间有空格等字符时交给Double.parseDouble报错
+            int j = i + 1;
+            boolean negativeExponent = j < to && chars[j] == '-';
+            if (j < to && (chars[j] == '-' || chars[j] == '+')) {
+                j++;
+            }
+            if (j == to) {
+                return slowParseDouble(chars, from, to);
+            }
+            int explicit = 0;
+            for (; j < to; j++) {
+                char c = chars[j];
+                if (c < '0' || c > '9') {
+                    return slowParseDouble(chars, from, to);
+                }
+                explicit = Math.min(explicit * 10 + (c - '0'), 1000);
+            }
+            if (explicit > 400) {
+                return slowParseDouble(chars, from, to);
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return slowParseDouble(chars, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double slowParseDouble(char[] chars, int from, int to) {
+        return Double.parseDouble(new String(chars, from, to - from));
+    }
+
+    /**
+     * 解析毫秒数，或 yyyy-MM-dd、yyyy-MM-dd HH:mm:ss[.SSS] 格式的时间，日期和时间之间也可以是T，以Z结尾时为UTC时间
+     */
+    long parseEpochMillis(char[] chars, int from, int to) {
+        while (from < to && chars[from] == ' ') {
+            from++;
+        }
+        while (to > from && chars[to - 1] == ' ') {
+            to--;
+        }
+        if (to - from < 10 || chars[from + 4] != '-') {
+            return parseLong(chars, from, to);
+        }
+        boolean utc = chars[to - 1] == 'Z';
+        if (utc) {
+            to--;
+        }
+        int year = digits(chars, from, 4);
+        int month = digits(chars, from + 5, 2);
+        int day = digits(chars, from + 8, 2);
+        if (chars[from + 7] != '-') {
+            throw new NumberFormatException("invalid date");
+        }
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+        int i = from + 10;
+        if (i < to) {
+            if ((chars[i] != ' ' && chars[i] != 'T') || to - i < 9 || chars[i + 3] != ':' || chars[i + 6] != ':') {
+                throw new NumberFormatException("invalid time");
+            }
+            hour = digits(chars, i + 1, 2);
+            minute = digits(chars, i + 4, 2);
+            second = digits(chars, i + 7, 2);
+            i += 9;
+            if (i < to) {
+                if (chars[i] != '.' || i + 1 == to || to - i > 10) {
+                    throw new NumberFormatException("invalid fraction");
+                }
+                // 只取到毫秒
+                int fractionDigits = Math.min(3, to - i - 1);
+                millis = digits(chars, i + 1, fractionDigits);
+                for (int k = fractionDigits; k < 3; k++) {
+                    millis *= 10;
+                }
+                digits(chars, i + 1, to - i - 1);
+            }
+        }
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour > 23 || minute > 59 || second > 59) {
+            throw new NumberFormatException("field out of range");
+        }
+        long localSeconds = toEpochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+        int offsetSeconds;
+        if (utc) {
+            offsetSeconds = 0;
+        } else if (fixedOffsetSeconds != null) {
+            offsetSeconds = fixedOffsetSeconds;
+        } else {
+            offsetSeconds = zoneRules.getOffset(LocalDateTime.of(year, month, day, hour, minute, second)).getTotalSeconds();
+        }
+        return (localSeconds - offsetSeconds) * 1000 + millis;
+    }
+
+    private static int digits(char[] chars, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("invalid digit");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // 与LocalDate.toEpochDay相同，年份为0到9999
+    private static long toEpochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12 + day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
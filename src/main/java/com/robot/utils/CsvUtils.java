@@ -6,16 +6,54 @@ import com.opencsv.exceptions.CsvValidationException;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * csv文件处理工具。
+ * <p>
+ * transformCSV、transformAllCSV会把所有数据读入内存，大文件使用streamCSV、readCSV、streamAllCSV逐行处理，
+ * 单个大文件可以用readCSVParallel分段并行解析。大量数据写出使用{@link CsvWriter}逐行写入。
+ * 数值为主的文件可以用readColumns、mapCSV按{@link CsvSchema}直接解析为基本类型。
+ * <p>
+ * 所有读取方法都按RFC 4180解析：带引号的字段中两个双引号表示一个双引号，反斜杠是普通字符，
+ * 与{@link CsvWriter}、createCSVFile写出的格式一致，写出后再读取得到相同的字段。
  *
  * @Author 张宝旭
  * @Date 2021/4/7
  */
 public class CsvUtils {
 
+    /**
+     * 并行读取单个文件时每段的默认字节数
+     */
+    private static final int DEFAULT_CHUNK_BYTES = 16 * 1024 * 1024;
+    /**
+     * 并行读取单个文件时每段的最小字节数
+     */
+    private static final int MIN_CHUNK_BYTES = 1024 * 1024;
+    /**
+     * 并行读取单个文件时的最大段数。每段的内存映射在缓冲区被回收前不会释放，段数过多会超出系统的映射数限制
+     */
+    private static final int MAX_CHUNK_COUNT = 8192;
+
     /**
      * 读取CSV文件。
      *
@@ -27,7 +65,7 @@ public class CsvUtils {
         List<String[]> list = new ArrayList<>();
         try (FileInputStream fileInputStream = new FileInputStream(localFile);
              InputStreamReader inputStreamReader = new InputStreamReader(fileInputStream, StandardCharsets.UTF_8);
-             CSVReader reader = new CSVReader(inputStreamReader)) {
+             CSVReader reader = CsvRowIterator.newReader(inputStreamReader)) {
             while ((nextLine = reader.readNext()) != null) {
                 list.add(nextLine);
             }
@@ -61,7 +99,7 @@ public class CsvUtils {
                 String[] nextLine;
                 try (FileInputStream fileInputStream = new FileInputStream(filePath + File.separator + listFile.getName());
                      InputStreamReader inputStreamReader = new InputStreamReader(fileInputStream, StandardCharsets.UTF_8);
-                     CSVReader reader = new CSVReader(inputStreamReader)) {
+                     CSVReader reader = CsvRowIterator.newReader(inputStreamReader)) {
                     while ((nextLine = reader.readNext()) != null) {
                         list.add(nextLine);
                     }
@@ -78,6 +116,408 @@ public class CsvUtils {
         return resultList;
     }
 
+    /**
+     * 以流的方式读取CSV文件，只在内存中保留当前一行。
+     * 返回的流必须关闭（建议使用try-with-resources），关闭时释放文件句柄。
+     *
+     * @param localFile CSV文件
+     * @return 行数据流，每个元素是csv的一行数据
+     */
+    public static Stream<String[]> streamCSV(String localFile) {
+        return openCsv(new File(localFile)).stream();
+    }
+
+    /**
+     * 逐行读取CSV文件，每读到一行交给rowConsumer处理，读完后关闭文件。
+     *
+     * @param localFile   CSV文件
+     * @param rowConsumer 行数据处理
+     * @return 读取的行数
+     */
+    public static long readCSV(String localFile, Consumer<String[]> rowConsumer) {
+        long count = 0;
+        try (CsvRowIterator iterator = openCsv(new File(localFile))) {
+            while (iterator.hasNext()) {
+                rowConsumer.accept(iterator.next());
+                count++;
+            }
+        } catch (UncheckedIOException e) {
+            // 迭代读取时的IO异常
+            e.printStackTrace();
+            throw new RuntimeException("读取文件异常", e);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("读取文件异常", e);
+        }
+        return count;
+    }
+
+    /**
+     * 分批读取CSV文件，每读满batchSize行交给batchConsumer处理一次，最后一批可能不足batchSize行。
+     * 内存中最多保留一批数据。
+     *
+     * @param localFile     CSV文件
+     * @param batchSize     每批行数
+     * @param batchConsumer 批数据处理，每批是一个新的列表，可以保留
+     * @return 读取的行数
+     */
+    public static long readCSV(String localFile, int batchSize, Consumer<List<String[]>> batchConsumer) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize必须大于0");
+        }
+        long count = 0;
+        try (CsvRowIterator iterator = openCsv(new File(localFile))) {
+            List<String[]> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                count++;
+                if (batch.size() == batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+        } catch (UncheckedIOException e) {
+            // 迭代读取时的IO异常
+            e.printStackTrace();
+            throw new RuntimeException("读取文件异常", e);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("读取文件异常", e);
+        }
+        return count;
+    }
+
+    /**
+     * 以流的方式依次读取指定目录下，所有文件名称中包含指定关键字的csv文件，文件按名称排序。
+     * 同一时刻只打开一个文件，读完一个文件后立即关闭；返回的流必须关闭，关闭时释放正在读取的文件。
+     *
+     * @param filePath 文件目录
+     * @param keyword  关键字
+     * @return 所有文件的行数据流
+     */
+    public static Stream<String[]> streamAllCSV(String filePath, String keyword) {
+        MultiFileRowIterator iterator = new MultiFileRowIterator(listCsvFiles(filePath, keyword));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 并行读取指定目录下，所有文件名称中包含指定关键字的csv文件，每个文件一个任务，在executor中执行。
+     * 同一文件的行按顺序交给rowConsumer，不同文件的行会在不同线程中同时交给rowConsumer，rowConsumer需要线程安全。
+     * 单个文件读取失败不影响其他文件，失败前已读取的行已经交给rowConsumer，失败的文件记录在结果中。
+     *
+     * @param filePath    文件目录
+     * @param keyword     关键字
+     * @param executor    执行读取任务的线程池，为null时使用ForkJoinPool.commonPool()
+     * @param rowConsumer 行数据处理，参数为文件和该文件的一行数据
+     * @return 读取结果和吞吐量统计
+     */
+    public static CsvIngestResult readAllCSV(String filePath, String keyword, Executor executor, BiConsumer<File, String[]> rowConsumer) {
+        return ingest(listCsvFiles(filePath, keyword), executor, (index, file) -> {
+            long count = 0;
+            try (CsvRowIterator iterator = openCsv(file)) {
+                while (iterator.hasNext()) {
+                    rowConsumer.accept(file, iterator.next());
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * 并行读取指定目录下，所有文件名称中包含指定关键字的csv文件，每个文件一个任务，在executor中执行。
+     * 所有数据读入内存，单个文件读取失败不影响其他文件，失败的文件不出现在数据中，记录在结果中。
+     *
+     * @param filePath 文件目录
+     * @param keyword  关键字
+     * @param executor 执行读取任务的线程池，为null时使用ForkJoinPool.commonPool()
+     * @param ordered  为true时数据按文件名顺序排列，否则按读取完成的顺序排列
+     * @return 读取结果，{@link CsvIngestResult#getData()}中每个元素是一个文件的内容
+     */
+    public static CsvIngestResult transformAllCSV(String filePath, String keyword, Executor executor, boolean ordered) {
+        List<File> files = listCsvFiles(filePath, keyword);
+        // 按文件名顺序时每个文件占一个位置，失败的文件最后去掉
+        List<List<String[]>> slots = ordered ? new ArrayList<>(Collections.nCopies(files.size(), null)) : null;
+        List<List<String[]>> completed = ordered ? null : Collections.synchronizedList(new ArrayList<>());
+        CsvIngestResult result = ingest(files, executor, (index, file) -> {
+            List<String[]> rows = new ArrayList<>();
+            try (CsvRowIterator iterator = openCsv(file)) {
+                iterator.forEachRemaining(rows::add);
+            }
+            if (ordered) {
+                slots.set(index, rows);
+            } else {
+                completed.add(rows);
+            }
+            return rows.size();
+        });
+        List<List<String[]>> data = new ArrayList<>();
+        if (ordered) {
+            slots.stream().filter(Objects::nonNull).forEach(data::add);
+        } else {
+            data.addAll(completed);
+        }
+        return new CsvIngestResult(result.getFileCount(), result.getErrors(), result.getRowCount(), result.getByteCount(),
+                result.getElapsedMillis(), data);
+    }
+
+    /**
+     * 并行读取单个大CSV文件：把文件映射到内存，按记录边界切成约chunkBytes字节的多段，各段在executor中并行解析。
+     * 带引号的字段中可以包含换行，文件必须是UTF-8编码并符合RFC 4180（字段中的双引号写成两个双引号，反斜杠不是转义符），
+     * 与{@link CsvWriter}写出的格式一致。每段解析出的行作为一批，在调用线程中交给batchConsumer，
+     * 内存中最多同时保留parallelism段的数据。每段不小于1MB，文件很大时会增大每段的字节数，使段数不超过8192。
+     *
+     * @param localFile     CSV文件
+     * @param executor      执行解析任务的线程池，为null时使用ForkJoinPool.commonPool()
+     * @param parallelism   同时解析的段数
+     * @param chunkBytes    每段的大致字节数
+     * @param ordered       为true时按文件中的顺序交给batchConsumer，否则按解析完成的顺序
+     * @param batchConsumer 批数据处理，每批是一个新的列表，可以保留
+     * @return 读取结果和吞吐量统计
+     */
+    public static CsvIngestResult readCSVParallel(String localFile, Executor executor, int parallelism, int chunkBytes,
+                                                  boolean ordered, Consumer<List<String[]>> batchConsumer) {
+        return readChunks(localFile, executor, parallelism, chunkBytes, ordered, CsvChunkReader::parseRows, batchConsumer);
+    }
+
+    /**
+     * 按schema并行读取单个大CSV文件，切分方式同{@link #readCSVParallel(String, Executor, int, int, boolean, Consumer)}。
+     * 各段用schema直接解析为基本类型，每行用mapper转换为对象，每段的对象作为一批交给batchConsumer。
+     * 只有第一段按schema跳过标题；mapper中{@link CsvRow#getRowNumber()}为段内的序号。
+     *
+     * @param localFile     CSV文件
+     * @param executor      执行解析任务的线程池，为null时使用ForkJoinPool.commonPool()
+     * @param parallelism   同时解析的段数
+     * @param chunkBytes    每段的大致字节数
+     * @param ordered       为true时按文件中的顺序交给batchConsumer，否则按解析完成的顺序
+     * @param schema        各列的名称和类型
+     * @param mapper        行转换，在解析线程中执行，必须线程安全
+     * @param batchConsumer 批数据处理，每批是一个新的列表，可以保留
+     * @return 读取结果和吞吐量统计
+     */
+    public static <T> CsvIngestResult readCSVParallel(String localFile, Executor executor, int parallelism, int chunkBytes,
+                                                      boolean ordered, CsvSchema schema, CsvRowMapper<T> mapper,
+                                                      Consumer<List<T>> batchConsumer) {
+        Objects.requireNonNull(schema, "schema不能为null");
+        Objects.requireNonNull(mapper, "mapper不能为null");
+        return readChunks(localFile, executor, parallelism, chunkBytes, ordered, (reader, first) -> {
+            List<T> list = new ArrayList<>();
+            CsvRow row = new CsvRow(schema);
+            try (CsvTypedReader typedReader = new CsvTypedReader(reader, schema, first && schema.isSkipHeader())) {
+                while (typedReader.next(row)) {
+                    list.add(mapper.map(row));
+                }
+            }
+            return list;
+        }, batchConsumer);
+    }
+
+    private static <T> CsvIngestResult readChunks(String localFile, Executor executor, int parallelism, int chunkBytes, boolean ordered,
+                                                  CsvChunkReader.ChunkParser<T> parser, Consumer<List<T>> batchConsumer) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism必须大于0");
+        }
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunkBytes必须大于0");
+        }
+        File file = new File(localFile);
+        long actualChunkBytes = Math.max(Math.max(chunkBytes, MIN_CHUNK_BYTES), (file.length() + MAX_CHUNK_COUNT - 1) / MAX_CHUNK_COUNT);
+        try {
+            return CsvChunkReader.read(file.toPath(), executor == null ? ForkJoinPool.commonPool() : executor,
+                    parallelism, (int) Math.min(Integer.MAX_VALUE, actualChunkBytes), ordered, parser, batchConsumer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("读取文件异常", e);
+        }
+    }
+
+    /**
+     * 并行读取单个大CSV文件，每段16MB，同时解析的段数为CPU核数，见{@link #readCSVParallel(String, Executor, int, int, boolean, Consumer)}
+     */
+    public static CsvIngestResult readCSVParallel(String localFile, Executor executor, boolean ordered, Consumer<List<String[]>> batchConsumer) {
+        return readCSVParallel(localFile, executor, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_BYTES, ordered, batchConsumer);
+    }
+
+    /**
+     * 按schema列式读取CSV文件，每列的数据存为一个基本类型数组，数值只解析一次。
+     *
+     * @param localFile CSV文件
+     * @param schema    各列的名称和类型
+     * @return 列式数据
+     */
+    public static CsvColumns readColumns(String localFile, CsvSchema schema) {
+        CsvColumns columns = new CsvColumns(schema, 1024);
+        readTyped(localFile, schema, columns::add);
+        return columns.trim();
+    }
+
+    /**
+     * 按schema分批列式读取CSV文件，每读满batchRows行交给batchConsumer处理一次，内存中最多保留一批数据。
+     *
+     * @param localFile     CSV文件
+     * @param schema        各列的名称和类型
+     * @param batchRows     每批行数
+     * @param batchConsumer 批数据处理，每批是一个新的对象，可以保留
+     * @return 读取的行数
+     */
+    public static long readColumns(String localFile, CsvSchema schema, int batchRows, Consumer<CsvColumns> batchConsumer) {
+        if (batchRows <= 0) {
+            throw new IllegalArgumentException("batchRows必须大于0");
+        }
+        CsvColumns[] batch = {new CsvColumns(schema, batchRows)};
+        long count = readTyped(localFile, schema, row -> {
+            batch[0].add(row);
+            if (batch[0].getRowCount() == batchRows) {
+                batchConsumer.accept(batch[0]);
+                batch[0] = new CsvColumns(schema, batchRows);
+            }
+        });
+        if (batch[0].getRowCount() > 0) {
+            batchConsumer.accept(batch[0].trim());
+        }
+        return count;
+    }
+
+    /**
+     * 按schema逐行读取CSV文件，每行用mapper转换为对象后交给consumer处理。
+     *
+     * @param localFile CSV文件
+     * @param schema    各列的名称和类型
+     * @param mapper    行转换
+     * @param consumer  对象处理
+     * @return 读取的行数
+     */
+    public static <T> long readCSV(String localFile, CsvSchema schema, CsvRowMapper<T> mapper, Consumer<T> consumer) {
+        return readTyped(localFile, schema, row -> consumer.accept(mapper.map(row)));
+    }
+
+    /**
+     * 按schema读取CSV文件，每行用mapper转换为对象。
+     *
+     * @param localFile CSV文件
+     * @param schema    各列的名称和类型
+     * @param mapper    行转换
+     * @return 所有行转换后的对象
+     */
+    public static <T> List<T> mapCSV(String localFile, CsvSchema schema, CsvRowMapper<T> mapper) {
+        List<T> list = new ArrayList<>();
+        readCSV(localFile, schema, mapper, list::add);
+        return list;
+    }
+
+    // 按schema逐行解析，同一个CsvRow对象在每行复用
+    private static long readTyped(String localFile, CsvSchema schema, Consumer<CsvRow> rowConsumer) {
+        long count = 0;
+        CsvRow row = new CsvRow(schema);
+        try (CsvTypedReader reader = new CsvTypedReader(new InputStreamReader(new FileInputStream(localFile), StandardCharsets.UTF_8), schema)) {
+            while (reader.next(row)) {
+                rowConsumer.accept(row);
+                count++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("读取文件异常", e);
+        }
+        return count;
+    }
+
+    // 每个文件一个任务并行执行，等待全部完成，task返回该文件读取的行数
+    private static CsvIngestResult ingest(List<File> files, Executor executor, CsvFileTask task) {
+        long start = System.currentTimeMillis();
+        Executor actualExecutor = executor == null ? ForkJoinPool.commonPool() : executor;
+        Map<File, Exception> errors = new ConcurrentSkipListMap<>();
+        LongAdder rowCount = new LongAdder();
+        LongAdder byteCount = new LongAdder();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            int index = i;
+            File file = files.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    rowCount.add(task.read(index, file));
+                    byteCount.add(file.length());
+                } catch (UncheckedIOException e) {
+                    errors.put(file, e.getCause());
+                } catch (Exception e) {
+                    errors.put(file, e);
+                }
+            }, actualExecutor);
+        }
+        CompletableFuture.allOf(futures).join();
+        return new CsvIngestResult(files.size(), errors, rowCount.sum(), byteCount.sum(), System.currentTimeMillis() - start, null);
+    }
+
+    @FunctionalInterface
+    private interface CsvFileTask {
+        long read(int index, File file) throws Exception;
+    }
+
+    // 目录下文件名称中包含关键字的文件，按名称排序
+    static List<File> listCsvFiles(String filePath, String keyword) {
+        File[] listFiles = new File(filePath).listFiles(file -> file.isFile() && file.getName().contains(keyword));
+        if (listFiles == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(listFiles, Comparator.comparing(File::getName));
+        return Arrays.asList(listFiles);
+    }
+
+    // 打开本地csv文件
+    static CsvRowIterator openCsv(File file) {
+        try {
+            return new CsvRowIterator(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), null);
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+            throw new RuntimeException("读取文件异常", e);
+        }
+    }
+
+    // 依次读取多个文件的迭代器，读完一个文件关闭后再打开下一个
+    private static class MultiFileRowIterator implements Iterator<String[]> {
+        private final Iterator<File> files;
+        private CsvRowIterator current;
+
+        MultiFileRowIterator(List<File> files) {
+            this.files = files.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                close();
+                if (!files.hasNext()) {
+                    return false;
+                }
+                current = openCsv(files.next());
+            }
+            return true;
+        }
+
+        @Override
+        public String[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        void close() {
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    current = null;
+                }
+            }
+        }
+    }
+
 
     /**
      * 创建csv文件。
@@ -89,31 +529,12 @@ public class CsvUtils {
      * @return 创建的文件
      */
     public static File createCSVFile(List<Object> head, List<List<Object>> dataList, String outPutPath, String filename) {
-        File csvFile = null;
-        BufferedWriter csvWriter = null;
-        try {
-            csvFile = new File(outPutPath + File.separator + filename + ".csv");
-            File parent = csvFile.getParentFile();
-            if (parent != null && !parent.exists()) {
-                parent.mkdirs();
-            }
-            csvFile.createNewFile();
-            csvWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8), 1024);
-            writeRow(head, csvWriter);
-            for (List<Object> row : dataList) {
-                writeRow(row, csvWriter);
-            }
-            csvWriter.flush();
+        File csvFile = new File(outPutPath + File.separator + filename + ".csv");
+        try (CsvWriter csvWriter = CsvWriter.open(csvFile)) {
+            csvWriter.writeRow(head);
+            csvWriter.writeRows(dataList.iterator());
         } catch (Exception e) {
             e.printStackTrace();
-        } finally {
-            try {
-                if (csvWriter != null) {
-                    csvWriter.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
         }
         return csvFile;
     }
@@ -127,45 +548,18 @@ public class CsvUtils {
      * @return csv数据
      */
     public static String createCsvData(List<Object> head, List<List<Object>> dataList) {
-        StringBuilder stringBuilder = new StringBuilder();
-        String header = convertRow(head);
-        stringBuilder.append(header).append("\n");
-        for (int i = 0; i < dataList.size(); i++) {
-            String line = convertRow(dataList.get(i));
-            if (i != dataList.size() - 1) {
-                stringBuilder.append(line).append("\n");
-            } else {
-                stringBuilder.append(line);
-            }
-        }
-        return String.valueOf(stringBuilder);
-    }
-
-    // 写入一行csv内容
-    private static void writeRow(List<Object> row, BufferedWriter csvWriter) throws IOException {
-        for (int i = 0; i < row.size(); i++) {
-            StringBuilder stringBuilder = new StringBuilder();
-            String rowStr;
-            if (i == row.size() - 1) { // 最后一个没有逗号
-                rowStr = stringBuilder.append(row.get(i)).toString();
-            } else {
-                rowStr = stringBuilder.append(row.get(i)).append(",").toString();
-            }
-            csvWriter.write(rowStr);
+        StringWriter stringWriter = new StringWriter();
+        try (CsvWriter csvWriter = new CsvWriter(stringWriter)) {
+            csvWriter.writeRow(head);
+            csvWriter.writeRows(dataList.iterator());
+        } catch (IOException e) {
+            throw new RuntimeException("生成csv数据异常", e);
         }
-        csvWriter.newLine();
-    }
-
-    // 将一行列表内容转换为csv
-    private static String convertRow(List<Object> row) {
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < row.size(); i++) {
-            if (i == row.size() - 1) { // 最后一个没有逗号
-                stringBuilder.append(row.get(i)).toString();
-            } else {
-                stringBuilder.append(row.get(i)).append(",").toString();
-            }
+        // 最后一行没有换行
+        StringBuffer buffer = stringWriter.getBuffer();
+        if (buffer.length() > 0) {
+            buffer.setLength(buffer.length() - 1);
         }
-        return String.valueOf(stringBuilder);
+        return buffer.toString();
     }
 }
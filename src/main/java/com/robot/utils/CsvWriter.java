@@ -0,0 +1,339 @@
+package com.robot.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * 流式写出CSV，按RFC 4180转义：字段中包含逗号、双引号或换行时用双引号包围，字段中的双引号写成两个双引号，
+ * 反斜杠原样写出。{@link CsvUtils}的读取方法按同样的规则解析，写出的文件可以原样读回。
+ * <p>
+ * 字段直接写入字符缓冲区，整数直接按位写出，不为每个字段创建字符串。写到文件时以UTF-8编码，
+ * 通过256KB的直接缓冲区写入FileChannel。行以\n结尾，null写成空字段。非线程安全，用完后必须关闭。
+ *
+ * <pre>
+ * try (CsvWriter writer = CsvWriter.open(new File("/data/export.csv"))) {
+ *     writer.writeRow("id", "name");
+ *     writer.writeRows(rows.iterator());
+ * }
+ * </pre>
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+    private static final int BYTE_BUFFER_SIZE = 256 * 1024;
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char LINE_END = '\n';
+
+    private final char[] chars = new char[CHAR_BUFFER_SIZE];
+    private int position;
+    private final Writer writer;
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+    private long rowCount;
+    private long byteCount;
+    private boolean closed;
+
+    /**
+     * 写到字符输出流，{@link #getByteCount()}为写出的字符数
+     *
+     * @param writer 字符输出流，关闭CsvWriter时一起关闭
+     */
+    public CsvWriter(Writer writer) {
+        this.writer = Objects.requireNonNull(writer, "writer can't be null");
+        this.channel = null;
+        this.encoder = null;
+        this.bytes = null;
+    }
+
+    private CsvWriter(FileChannel channel) {
+        this.writer = null;
+        this.channel = channel;
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+    }
+
+    /**
+     * 创建或覆盖文件，以UTF-8编码写出，不存在的上级目录会被创建
+     *
+     * @param file CSV文件
+     * @return 写到该文件的CsvWriter
+     */
+    public static CsvWriter open(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        return new CsvWriter(FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * 写出一行
+     *
+     * @param row 每个元素是一个字段
+     */
+    public void writeRow(Object... row) throws IOException {
+        ensureOpen();
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                put(SEPARATOR);
+            }
+            writeCell(row[i]);
+        }
+        endRow();
+    }
+
+    /**
+     * 写出一行
+     *
+     * @param row 每个元素是一个字段
+     */
+    public void writeRow(Iterable<?> row) throws IOException {
+        ensureOpen();
+        boolean first = true;
+        for (Object cell : row) {
+            if (!first) {
+                put(SEPARATOR);
+            }
+            writeCell(cell);
+            first = false;
+        }
+        endRow();
+    }
+
+    /**
+     * 依次写出迭代器中的每一行
+     *
+     * @return 写出的行数
+     */
+    public long writeRows(Iterator<? extends Iterable<?>> rows) throws IOException {
+        long count = 0;
+        while (rows.hasNext()) {
+            writeRow(rows.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 依次写出流中的每一行，不关闭流
+     *
+     * @return 写出的行数
+     */
+    public long writeRows(Stream<? extends Iterable<?>> rows) throws IOException {
+        return writeRows(rows.iterator());
+    }
+
+    /**
+     * 依次写出迭代器中的每一行，行是数组，如CsvUtils读取的String[]
+     *
+     * @return 写出的行数
+     */
+    public long writeArrays(Iterator<? extends Object[]> rows) throws IOException {
+        long count = 0;
+        while (rows.hasNext()) {
+            writeRow(rows.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 依次写出流中的每一行，行是数组，不关闭流
+     *
+     * @return 写出的行数
+     */
+    public long writeArrays(Stream<? extends Object[]> rows) throws IOException {
+        return writeArrays(rows.iterator());
+    }
+
+    private void writeCell(Object cell) throws IOException {
+        if (cell == null) {
+            return;
+        }
+        if (cell instanceof Long || cell instanceof Integer || cell instanceof Short || cell instanceof Byte) {
+            writeLong(((Number) cell).longValue());
+            return;
+        }
+        CharSequence value = cell instanceof CharSequence ? (CharSequence) cell : cell.toString();
+        int length = value.length();
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == QUOTE || c == '\n' || c == '\r') {
+                quoted = true;
+                break;
+            }
+        }
+        if (!quoted) {
+            for (int i = 0; i < length; i++) {
+                put(value.charAt(i));
+            }
+            return;
+        }
+        put(QUOTE);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                put(QUOTE);
+            }
+            put(c);
+        }
+        put(QUOTE);
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeCell(String.valueOf(value));
+            return;
+        }
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        // long最多19位，先确保缓冲区放得下再从后往前写
+        if (position + 19 > chars.length) {
+            flushChars();
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    private void endRow() throws IOException {
+        put(LINE_END);
+        rowCount++;
+    }
+
+    private void put(char c) throws IOException {
+        if (position == chars.length) {
+            flushChars();
+        }
+        chars[position++] = c;
+    }
+
+    // 把字符缓冲区的内容交给writer，或编码后写入文件
+    private void flushChars() throws IOException {
+        if (writer != null) {
+            writer.write(chars, 0, position);
+            byteCount += position;
+            position = 0;
+            return;
+        }
+        CharBuffer input = CharBuffer.wrap(chars, 0, position);
+        encode(input, false);
+        // 缓冲区末尾不完整的代理对留到下次编码
+        int remaining = input.remaining();
+        System.arraycopy(chars, input.position(), chars, 0, remaining);
+        position = remaining;
+    }
+
+    private void encode(CharBuffer input, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(input, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drainBytes();
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            byteCount += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("CsvWriter已关闭");
+        }
+    }
+
+    /**
+     * 把缓冲区中的内容写出。写到文件时，缓冲区末尾不完整的代理对会留到下次写出
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushChars();
+        if (writer != null) {
+            writer.flush();
+        } else {
+            drainBytes();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (writer != null) {
+                flushChars();
+            } else {
+                encode(CharBuffer.wrap(chars, 0, position), true);
+                position = 0;
+                while (encoder.flush(bytes).isOverflow()) {
+                    drainBytes();
+                }
+                drainBytes();
+            }
+        } finally {
+            closed = true;
+            if (writer != null) {
+                writer.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * @return 已写出的行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return 已写到文件的字节数，不包括还在缓冲区中的内容；写到Writer时为字符数
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+}
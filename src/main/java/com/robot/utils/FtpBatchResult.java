@@ -0,0 +1,43 @@
+package com.robot.utils;
+
+import java.util.List;
+
+/**
+ * FTP批量操作结果。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class FtpBatchResult {
+
+    /**
+     * 成功的条目数
+     */
+    private final int successCount;
+    /**
+     * 失败的条目路径，包括无法列出的目录
+     */
+    private final List<String> failedPaths;
+
+    FtpBatchResult(int successCount, List<String> failedPaths) {
+        this.successCount = successCount;
+        this.failedPaths = failedPaths;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public int getFailedCount() {
+        return failedPaths.size();
+    }
+
+    public List<String> getFailedPaths() {
+        return failedPaths;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FtpBatchResult{success=%d, failed=%d}", successCount, failedPaths.size());
+    }
+}
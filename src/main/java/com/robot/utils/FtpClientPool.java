@@ -0,0 +1,319 @@
+package com.robot.utils;
+
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FTP连接池。
+ * <p>
+ * 按 主机+端口+用户名+密码 复用已登录的{@link FTPClient}，连接总数有上限，
+ * 借出时对空闲过久的连接发送NOOP检测是否可用，后台定时关闭空闲超时的连接。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class FtpClientPool {
+
+    /**
+     * 默认最大连接数
+     */
+    public static final int DEFAULT_MAX_TOTAL = 8;
+    /**
+     * 默认空闲连接存活时间(毫秒)
+     */
+    public static final long DEFAULT_MAX_IDLE_MILLIS = 60_000L;
+    /**
+     * 空闲超过该时间(毫秒)的连接，借出前先发送NOOP检测
+     */
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 10_000L;
+
+    private static final Map<String, FtpClientPool> POOLS = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ftp-pool-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        EVICTOR.scheduleWithFixedDelay(() -> POOLS.values().forEach(FtpClientPool::evictIdle), 30, 30, TimeUnit.SECONDS);
+    }
+
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int maxTotal;
+    private final long maxIdleMillis;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<IdleClient> idleClients = new LinkedBlockingDeque<>();
+    /**
+     * 借出中的连接及其登录后的初始目录，归还时切回初始目录
+     */
+    private final Map<FTPClient, String> borrowed = new ConcurrentHashMap<>();
+
+    private FtpClientPool(String host, int port, String username, String password, int maxTotal, long maxIdleMillis) {
+        if (maxTotal <= 0) {
+            throw new IllegalArgumentException("maxTotal必须大于0");
+        }
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.maxTotal = maxTotal;
+        this.maxIdleMillis = maxIdleMillis;
+        this.permits = new Semaphore(maxTotal, true);
+    }
+
+    /**
+     * 获取指定服务器的连接池，使用默认配置。
+     *
+     * @param host     主机地址
+     * @param port     端口号
+     * @param username 用户名
+     * @param password 密码
+     * @return 连接池
+     */
+    public static FtpClientPool getPool(String host, int port, String username, String password) {
+        return getPool(host, port, username, password, DEFAULT_MAX_TOTAL, DEFAULT_MAX_IDLE_MILLIS);
+    }
+
+    /**
+     * 获取指定服务器的连接池，同一 主机+端口+用户名+密码 只会创建一个连接池，已存在时忽略后两个参数。
+     * 密码变更后会使用新的连接池，不会复用旧密码登录的连接。
+     *
+     * @param host          主机地址
+     * @param port          端口号
+     * @param username      用户名
+     * @param password      密码
+     * @param maxTotal      最大连接数
+     * @param maxIdleMillis 空闲连接存活时间(毫秒)
+     * @return 连接池
+     */
+    public static FtpClientPool getPool(String host, int port, String username, String password, int maxTotal, long maxIdleMillis) {
+        // 键中只保存密码的摘要
+        String key = username + "@" + host + ":" + port + "#" + digest(password);
+        return POOLS.computeIfAbsent(key, k -> new FtpClientPool(host, port, username, password, maxTotal, maxIdleMillis));
+    }
+
+    private static String digest(String password) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 借出一个已登录的连接，连接数已满时阻塞等待。
+     *
+     * @return ftp客户端
+     * @throws IOException 连接或登录失败
+     */
+    public FTPClient borrow() throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待FTP连接时被中断", e);
+        }
+        try {
+            IdleClient idle;
+            while ((idle = idleClients.pollFirst()) != null) {
+                if (System.currentTimeMillis() - idle.lastUsed < VALIDATE_AFTER_IDLE_MILLIS || validate(idle.client)) {
+                    borrowed.put(idle.client, idle.homeDir);
+                    return idle.client;
+                }
+                destroy(idle.client);
+            }
+            FTPClient client = connect();
+            try {
+                String homeDir = client.printWorkingDirectory();
+                borrowed.put(client, homeDir != null ? homeDir : "/");
+            } catch (IOException e) {
+                destroy(client);
+                throw e;
+            }
+            return client;
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还连接。连接已断开或无法切回初始目录时直接关闭。
+     * 归还时清除断点续传的起始偏移量，下一个使用者的传输总是从文件开头开始。
+     *
+     * @param client ftp客户端
+     */
+    public void release(FTPClient client) {
+        String homeDir = borrowed.remove(client);
+        if (homeDir == null) {
+            return;
+        }
+        client.setRestartOffset(0);
+        try {
+            if (client.isConnected() && client.changeWorkingDirectory(homeDir)) {
+                idleClients.offerFirst(new IdleClient(client, homeDir, System.currentTimeMillis()));
+                return;
+            }
+            destroy(client);
+        } catch (IOException e) {
+            destroy(client);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 作废连接，传输出错后连接状态未知时使用，连接会被关闭而不是放回池中。
+     *
+     * @param client ftp客户端
+     */
+    public void invalidate(FTPClient client) {
+        if (borrowed.remove(client) == null) {
+            return;
+        }
+        destroy(client);
+        permits.release();
+    }
+
+    /**
+     * 关闭所有空闲连接，借出中的连接不受影响，之后仍可继续借出新连接。
+     */
+    public void clear() {
+        IdleClient idle;
+        while ((idle = idleClients.pollFirst()) != null) {
+            destroy(idle.client);
+        }
+    }
+
+    /**
+     * @return 最大连接数
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * @return 当前空闲连接数
+     */
+    public int getIdleCount() {
+        return idleClients.size();
+    }
+
+    /**
+     * @return 当前借出的连接数
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    // 关闭空闲超时的连接
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<IdleClient> iterator = idleClients.descendingIterator();
+        while (iterator.hasNext()) {
+            IdleClient idle = iterator.next();
+            if (now - idle.lastUsed > maxIdleMillis && idleClients.removeFirstOccurrence(idle)) {
+                destroy(idle.client);
+            }
+        }
+    }
+
+    private FTPClient connect() throws IOException {
+        FTPClient client = new ListingClient();
+        client.setControlEncoding("UTF-8");
+        System.out.println(String.format("连接FTP服务器:%s,端口:%d,用户名:%s", host, port, username));
+        try {
+            client.connect(host, port);
+            if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+                throw new IOException("连接失败!返回码:" + client.getReplyCode());
+            }
+            if (!client.login(username, password)) {
+                throw new IOException("登录失败!返回码:" + client.getReplyCode());
+            }
+            client.setFileType(FTP.BINARY_FILE_TYPE);
+            client.enterLocalPassiveMode();
+            client.setRemoteVerificationEnabled(false);
+            System.out.println("连接成功!");
+            return client;
+        } catch (IOException e) {
+            destroy(client);
+            throw e;
+        }
+    }
+
+    private boolean validate(FTPClient client) {
+        try {
+            return client.isConnected() && client.sendNoOp();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void destroy(FTPClient client) {
+        try {
+            if (client.isConnected()) {
+                client.logout();
+            }
+        } catch (IOException ignored) {
+            // 连接已不可用，直接断开
+        } finally {
+            try {
+                client.disconnect();
+            } catch (IOException ignored) {
+                // 忽略断开时的异常
+            }
+        }
+    }
+
+    /**
+     * 池中创建的连接，可以逐行读取目录列表的数据流，不必像{@link FTPClient#initiateListParsing()}那样先读入整个列表
+     */
+    static final class ListingClient extends FTPClient {
+
+        /**
+         * 在当前目录执行MLSD或LIST，读完并关闭返回的流后需要调用{@link #completePendingCommand()}
+         *
+         * @param command MLSD或LIST
+         * @return 列表数据流，命令失败时为null
+         */
+        InputStream openListing(String command) throws IOException {
+            return _retrieveFileStream(command, null);
+        }
+    }
+
+    private static final class IdleClient {
+        private final FTPClient client;
+        private final String homeDir;
+        private final long lastUsed;
+
+        private IdleClient(FTPClient client, String homeDir, long lastUsed) {
+            this.client = client;
+            this.homeDir = homeDir;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -1,14 +1,37 @@
 package com.robot.utils;
 
-import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPClientConfig;
+import org.apache.commons.net.ftp.FTPCmd;
 import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPFileEntryParser;
 import org.apache.commons.net.ftp.FTPReply;
+import org.apache.commons.net.ftp.parser.DefaultFTPFileEntryParserFactory;
+import org.apache.commons.net.ftp.parser.MLSxEntryParser;
+import org.apache.commons.net.ftp.parser.ParserInitializationException;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * FTP工具类。
@@ -18,27 +41,15 @@ import java.util.List;
  */
 public class FtpClientUtils {
 
-    private FTPClient ftpClient;
+    private final FtpClientPool pool;
 
-    private FtpClientUtils(String host, int port, String username, String passwd) {
-        this.ftpClient = new FTPClient();
-        this.ftpClient.setControlEncoding("UTF-8");
-        System.out.println(String.format("连接FTP服务器:%s,端口:%d,用户名:%s,密码:%s", host, port, username, passwd));
-        try {
-            this.ftpClient.connect(host, port);
-            this.ftpClient.login(username, passwd);
-            int replyCode = this.ftpClient.getReplyCode();
-            if (!FTPReply.isPositiveCompletion(replyCode)) {
-                System.err.println("连接失败!返回码:" + replyCode);
-            }
-            System.out.println("连接成功!");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private FtpClientUtils(FtpClientPool pool) {
+        this.pool = pool;
     }
 
     /**
-     * 初始化连接ftp服务器。
+     * 初始化连接ftp服务器。连接从{@link FtpClientPool}中借出，同一服务器的多个实例共享连接池，
+     * 各方法可以被多个线程同时调用。
      *
      * @param host     主机地址
      * @param port     端口号
@@ -47,7 +58,17 @@ public class FtpClientUtils {
      * @return ftp客户端
      */
     public static FtpClientUtils init(String host, int port, String username, String password) {
-        return new FtpClientUtils(host, port, username, password);
+        return new FtpClientUtils(FtpClientPool.getPool(host, port, username, password));
+    }
+
+    /**
+     * 使用指定的连接池初始化。
+     *
+     * @param pool 连接池
+     * @return ftp客户端
+     */
+    public static FtpClientUtils init(FtpClientPool pool) {
+        return new FtpClientUtils(pool);
     }
 
     /**
@@ -75,35 +96,177 @@ public class FtpClientUtils {
      * @return 是否上传成功
      */
     public boolean uploadInputStream(String serverPath, String serverFilename, InputStream input) throws IOException {
-        if (!ftpClient.changeWorkingDirectory(serverPath)) {
-            ftpClient.makeDirectory(serverPath);
-            ftpClient.changeWorkingDirectory(serverPath);
+        FTPClient ftpClient = pool.borrow();
+        boolean completed = false;
+        try {
+            if (!ftpClient.changeWorkingDirectory(serverPath)) {
+                ftpClient.makeDirectory(serverPath);
+                ftpClient.changeWorkingDirectory(serverPath);
+            }
+            boolean stored = ftpClient.storeFile(serverFilename, input);
+            completed = true;
+            return stored;
+        } finally {
+            finish(ftpClient, completed);
         }
-        ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
-        ftpClient.enterLocalPassiveMode();
-        ftpClient.setRemoteVerificationEnabled(false);
-        return ftpClient.storeFile(serverFilename, input);
     }
 
     // 删除ftp指定目录下的所有文件
     public int deleteFtpFiles(String ftpDir) {
-        int count = 0;
-        try {
-            ftpClient.enterLocalPassiveMode();
-            ftpClient.changeWorkingDirectory(ftpDir);
-            FTPFile[] ftpFiles = ftpClient.listFiles();
-            for (FTPFile file : ftpFiles) {
-                String fileName = new String(file.getName().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
-                if (file.isFile()) {
-                    if (ftpClient.deleteFile(fileName)) {
-                        count++;
+        return deleteFtpFiles(ftpDir, null, false, 1).getSuccessCount();
+    }
+
+    /**
+     * 批量删除ftp目录下符合条件的文件，删除命令分散到多个连接上并行发送。
+     *
+     * @param ftpDir      ftp目录
+     * @param filter      文件过滤条件，为null时删除所有文件，可以用{@link #nameMatches(String)}按通配符过滤
+     * @param recursive   是否同时删除子目录中的文件，目录本身保留
+     * @param parallelism 并行连接数
+     * @return 删除结果，列出失败的目录也计入失败
+     */
+    public FtpBatchResult deleteFtpFiles(String ftpDir, Predicate<FTPFile> filter, boolean recursive, int parallelism) {
+        List<String> failedPaths = Collections.synchronizedList(new ArrayList<>());
+        List<String> files = walk(ftpDir, filter, recursive, parallelism, (index, dir, e) -> failedPaths.add(dir));
+        AtomicInteger success = new AtomicInteger();
+        runParallel(files, parallelism, (ftpClient, index, path) -> {
+            if (ftpClient.deleteFile(path)) {
+                success.incrementAndGet();
+            } else {
+                failedPaths.add(path);
+            }
+        }, (index, path, e) -> failedPaths.add(path));
+        return new FtpBatchResult(success.get(), failedPaths);
+    }
+
+    /**
+     * 列出ftp目录下符合条件的文件，递归时同一层的子目录分散到多个连接上并行列出。
+     *
+     * @param ftpDir      ftp目录
+     * @param filter      文件过滤条件，为null时返回所有文件
+     * @param recursive   是否包含子目录中的文件
+     * @param parallelism 并行连接数
+     * @return 文件的完整路径
+     * @throws IOException 有目录不存在或无法列出，异常信息中包含所有失败的目录，第一个目录的异常作为cause
+     */
+    public List<String> listFiles(String ftpDir, Predicate<FTPFile> filter, boolean recursive, int parallelism) throws IOException {
+        Map<String, Exception> failedDirs = new ConcurrentSkipListMap<>();
+        List<String> files = walk(ftpDir, filter, recursive, parallelism, (index, dir, e) -> failedDirs.put(dir, e));
+        if (!failedDirs.isEmpty()) {
+            throw new IOException("列出ftp目录失败: " + failedDirs.keySet(), failedDirs.values().iterator().next());
+        }
+        return files;
+    }
+
+    /**
+     * 按通配符匹配文件名，例如 *.csv、data_202?_*.{csv,txt}。
+     * *匹配任意个字符，?匹配一个字符，[abc]、[a-z]、[!abc]匹配字符集合，{csv,txt}匹配其中一项，\转义下一个字符。
+     * 直接按ftp上的文件名匹配，不经过本地文件系统，区分大小写。
+     *
+     * @param glob 通配符
+     * @return 文件过滤条件
+     */
+    public static Predicate<FTPFile> nameMatches(String glob) {
+        Pattern pattern = Pattern.compile(globToRegex(glob));
+        return ftpFile -> ftpFile.getName() != null && pattern.matcher(ftpFile.getName()).matches();
+    }
+
+    // 把通配符转换为正则表达式
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 16);
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    regex.append(".*");
+                    break;
+                case '?':
+                    regex.append('.');
+                    break;
+                case '[':
+                    int end = glob.indexOf(']', i + 2);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("通配符中的[没有结束: " + glob);
                     }
-                }
+                    regex.append('[');
+                    int j = i + 1;
+                    if (glob.charAt(j) == '!') {
+                        regex.append('^');
+                        j++;
+                    }
+                    for (; j < end; j++) {
+                        char ch = glob.charAt(j);
+                        if (ch == '\\' || ch == '[' || ch == '^' || ch == '&') {
+                            regex.append('\\');
+                        }
+                        regex.append(ch);
+                    }
+                    regex.append(']');
+                    i = end;
+                    break;
+                case '{':
+                    if (inGroup) {
+                        throw new IllegalArgumentException("通配符中的{不能嵌套: " + glob);
+                    }
+                    inGroup = true;
+                    regex.append("(?:");
+                    break;
+                case '}':
+                    if (!inGroup) {
+                        throw new IllegalArgumentException("通配符中的}没有开始: " + glob);
+                    }
+                    inGroup = false;
+                    regex.append(')');
+                    break;
+                case ',':
+                    regex.append(inGroup ? "|" : ",");
+                    break;
+                case '\\':
+                    if (++i == glob.length()) {
+                        throw new IllegalArgumentException("通配符以\\结尾: " + glob);
+                    }
+                    regex.append(Pattern.quote(String.valueOf(glob.charAt(i))));
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return count;
+        if (inGroup) {
+            throw new IllegalArgumentException("通配符中的{没有结束: " + glob);
+        }
+        return regex.toString();
+    }
+
+    // 按层遍历目录，每一层的目录并行列出，不存在或无法列出的目录交给onError
+    private List<String> walk(String ftpDir, Predicate<FTPFile> filter, boolean recursive, int parallelism, FtpErrorHandler<String> onError) {
+        List<String> files = Collections.synchronizedList(new ArrayList<>());
+        List<String> level = Collections.singletonList(ftpDir);
+        while (!level.isEmpty()) {
+            List<String> subDirs = Collections.synchronizedList(new ArrayList<>());
+            runParallel(level, parallelism, (ftpClient, index, dir) -> {
+                FTPFile[] ftpFiles = ftpClient.listFiles(dir);
+                // 目录不存在时LIST返回失败，listFiles返回空数组
+                if (!FTPReply.isPositiveCompletion(ftpClient.getReplyCode())) {
+                    throw new FileNotFoundException("无法列出ftp目录: " + dir + ", 返回码:" + ftpClient.getReplyCode());
+                }
+                for (FTPFile ftpFile : ftpFiles) {
+                    String name = ftpFile.getName();
+                    if (name == null || ".".equals(name) || "..".equals(name)) {
+                        continue;
+                    }
+                    if (ftpFile.isDirectory()) {
+                        if (recursive) {
+                            subDirs.add(childPath(dir, name));
+                        }
+                    } else if (ftpFile.isFile() && (filter == null || filter.test(ftpFile))) {
+                        files.add(childPath(dir, name));
+                    }
+                }
+            }, onError);
+            level = new ArrayList<>(subDirs);
+        }
+        return new ArrayList<>(files);
     }
 
     /**
@@ -132,25 +295,35 @@ public class FtpClientUtils {
      * @param fileName 文件名
      */
     public String[] getFtpFile(String ftpPath, String fileName) {
-        if (ftpClient != null) {
-            try {
-                if (!ftpClient.changeWorkingDirectory(ftpPath)) {
-                    return null;
-                }
-                ftpClient.enterLocalPassiveMode();  // 设置被动模式，开通一个端口来传输数据
-                InputStream inputStream = ftpClient.retrieveFileStream(fileName);//根据指定名称获取指定文件
-                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        FTPClient ftpClient = null;
+        // 传输结果已读取，连接可以归还；否则连接上可能还有未读取的应答，只能作废
+        boolean completed = false;
+        try {
+            ftpClient = pool.borrow();
+            if (!ftpClient.changeWorkingDirectory(ftpPath)) {
+                completed = true;
+                return null;
+            }
+            StringBuilder stringBuilder = new StringBuilder(150);
+            InputStream inputStream = ftpClient.retrieveFileStream(fileName);//根据指定名称获取指定文件
+            if (inputStream == null) {
+                completed = true;
+                return null;
+            }
+            try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
                 String line;
-                StringBuilder stringBuilder = new StringBuilder(150);
                 while ((line = bufferedReader.readLine()) != null) {
                     stringBuilder.append(line).append("\n");
                 }
-                ftpClient.completePendingCommand();
-                String context = stringBuilder.toString();
-                return context.replaceAll("\"", "").split("\n");
-            } catch (IOException e) {
-                e.printStackTrace();
             }
+            ftpClient.completePendingCommand();
+            completed = true;
+            String context = stringBuilder.toString();
+            return context.replaceAll("\"", "").split("\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            finish(ftpClient, completed);
         }
         return null;
     }
@@ -164,57 +337,115 @@ public class FtpClientUtils {
      */
     public List<List<String[]>> getAllFtpCsvFile(String ftpPath) {
         List<List<String[]>> list = new ArrayList<>();
-        InputStream inputStream = null;
-        BufferedReader bufferedReader = null;
-        InputStreamReader inputStreamReader = null;
-        if (ftpClient != null) {
-            try {
-                // 判断是否存在该目录
-                if (!ftpClient.changeWorkingDirectory(ftpPath)) {
-                    return null;
+        FTPClient ftpClient = null;
+        boolean completed = false;
+        try {
+            ftpClient = pool.borrow();
+            // 判断是否存在该目录
+            if (!ftpClient.changeWorkingDirectory(ftpPath)) {
+                completed = true;
+                return null;
+            }
+            FTPFile[] ftpFiles = ftpClient.listFiles();
+            for (FTPFile ftpFile : ftpFiles) {
+                completed = false;
+                StringBuilder stringBuilder = new StringBuilder(150);
+                InputStream inputStream = ftpClient.retrieveFileStream(ftpFile.getName());
+                if (inputStream == null) {
+                    throw new FileNotFoundException("ftp文件读取失败: " + ftpFile.getName() + ", 返回码:" + ftpClient.getReplyCode());
                 }
-                ftpClient.enterLocalPassiveMode();  // 设置被动模式，开通一个端口来传输数据
-                FTPFile[] ftpFiles = ftpClient.listFiles();
-                for (FTPFile ftpFile : ftpFiles) {
-                    inputStream = ftpClient.retrieveFileStream(ftpFile.getName());
-                    inputStreamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
-                    bufferedReader = new BufferedReader(inputStreamReader);
+                try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
                     String line;
-                    StringBuilder stringBuilder = new StringBuilder(150);
                     while ((line = bufferedReader.readLine()) != null) {
                         stringBuilder.append(line).append("\n");
                     }
-                    String context = stringBuilder.toString();
-                    String[] split = context.replaceAll("\"", "").split("\n");
-                    List<String[]> list1 = new ArrayList<>();
-                    for (String s : split) {
-                        list1.add(s.split(","));
-                    }
-                    list.add(list1);
-                    ftpClient.completePendingCommand();
                 }
-                return list;
-            } catch (IOException e) {
-                e.printStackTrace();
-            } finally {
-                try {
-                    if (inputStream != null) {
-                        inputStream.close();
-                    }
-                    if (bufferedReader != null) {
-                        bufferedReader.close();
-                    }
-                    if (inputStreamReader != null) {
-                        inputStreamReader.close();
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
+                String context = stringBuilder.toString();
+                String[] split = context.replaceAll("\"", "").split("\n");
+                List<String[]> list1 = new ArrayList<>();
+                for (String s : split) {
+                    list1.add(s.split(","));
                 }
+                list.add(list1);
+                ftpClient.completePendingCommand();
+                completed = true;
             }
+            completed = true;
+            return list;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            finish(ftpClient, completed);
         }
         return null;
     }
 
+    /**
+     * 以流的方式逐行读取ftp上的csv文件，内存中只保留当前一行，适合读取大文件。
+     * 返回的流占用一个连接，必须关闭（推荐try-with-resources），关闭时结束本次传输并归还连接。
+     *
+     * @param ftpPath  ftp路径
+     * @param fileName 文件名
+     * @return 行数据流，String[]中每个字符串，就是一行中的一个数据
+     * @throws IOException 目录或文件不存在，或者读取失败
+     */
+    public Stream<String[]> streamFtpCsvFile(String ftpPath, String fileName) throws IOException {
+        return openFtpCsv(ftpPath, fileName).stream();
+    }
+
+    /**
+     * 逐行读取ftp上的csv文件，每读到一行就交给rowConsumer处理，读取结束后自动归还连接。
+     *
+     * @param ftpPath     ftp路径
+     * @param fileName    文件名
+     * @param rowConsumer 行处理
+     * @return 读取的行数
+     * @throws IOException 目录或文件不存在，或者读取失败
+     */
+    public long readFtpCsvFile(String ftpPath, String fileName, Consumer<String[]> rowConsumer) throws IOException {
+        long count = 0;
+        try (CsvRowIterator iterator = openFtpCsv(ftpPath, fileName)) {
+            while (iterator.hasNext()) {
+                rowConsumer.accept(iterator.next());
+                count++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count;
+    }
+
+    // 打开ftp上的csv文件，关闭时完成传输命令并归还连接
+    private CsvRowIterator openFtpCsv(String ftpPath, String fileName) throws IOException {
+        FTPClient ftpClient = pool.borrow();
+        InputStream inputStream;
+        try {
+            if (!ftpClient.changeWorkingDirectory(ftpPath)) {
+                throw new FileNotFoundException("ftp目录不存在: " + ftpPath);
+            }
+            inputStream = ftpClient.retrieveFileStream(fileName);
+            if (inputStream == null) {
+                throw new FileNotFoundException("ftp文件读取失败: " + fileName + ", 返回码:" + ftpClient.getReplyCode());
+            }
+        } catch (IOException | RuntimeException e) {
+            pool.release(ftpClient);
+            throw e;
+        }
+        return new CsvRowIterator(new InputStreamReader(inputStream, StandardCharsets.UTF_8), () -> {
+            // 数据流已关闭，读取传输结果；提前关闭时服务器可能返回失败，此时连接状态不确定，直接作废
+            boolean completed = false;
+            try {
+                completed = ftpClient.completePendingCommand();
+            } finally {
+                if (completed) {
+                    pool.release(ftpClient);
+                } else {
+                    pool.invalidate(ftpClient);
+                }
+            }
+        });
+    }
+
     /**
      * 下载ftp指定文件，下载下来的文件名和ftp上的文件名相同。
      *
@@ -241,59 +472,237 @@ public class FtpClientUtils {
         if (!file.exists()) {
             file.mkdir();
         }
-        try (OutputStream out = new FileOutputStream(new File(localPath + File.separator + serverFileName))) {
+        FTPClient ftpClient = null;
+        boolean completed = false;
+        try (OutputStream out = new FileOutputStream(new File(localPath + File.separator + localFileName))) {
+            ftpClient = pool.borrow();
             ftpClient.changeWorkingDirectory(serverPath);
-            ftpClient.enterLocalPassiveMode();
-            ftpClient.setRemoteVerificationEnabled(false);
-            boolean retrieveFile = ftpClient.retrieveFile(localFileName, out);
+            boolean retrieveFile = ftpClient.retrieveFile(serverFileName, out);
+            completed = true;
             if (retrieveFile) {
                 return true;
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            finish(ftpClient, completed);
         }
         return false;
     }
 
     /**
-     * 下载ftp指定目录的所有文件。
+     * 断点续传下载ftp指定文件。本地已有部分文件时从其末尾继续下载，传输中断时换一个连接重试，
+     * 完成后核对本地文件大小与ftp文件大小是否一致。
      *
-     * @param serverPath ftp目录
-     * @param localPath  要下载到的本地目录
+     * @param serverPath     ftp路径
+     * @param serverFileName ftp文件名
+     * @param localPath      本地路径
+     * @param localFileName  本地文件名
+     * @param maxAttempts    最多尝试次数
+     * @return 下载结果，offset为续传开始时本地已有的字节数
      */
-    public void downloadAllFile(String serverPath, String localPath) {
-        File file = new File(localPath);
-        if (!file.exists()) {
-            file.mkdir();
+    public FtpTransferResult downloadResume(String serverPath, String serverFileName, String localPath, String localFileName, int maxAttempts) {
+        File dir = new File(localPath);
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
-        OutputStream is = null;
-        try {
-            ftpClient.changeWorkingDirectory(serverPath);
-            ftpClient.enterLocalPassiveMode();
-            ftpClient.setRemoteVerificationEnabled(false);
-            FTPFile[] ftpFiles = ftpClient.listFiles();
-            for (FTPFile ftpFile : ftpFiles) {
-                if (!ftpFile.isFile()) {
-                    continue;
+        File localFile = new File(dir, localFileName);
+        long start = System.currentTimeMillis();
+        long startOffset = localFile.length();
+        IOException error = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            FTPClient ftpClient = null;
+            boolean completed = false;
+            try {
+                ftpClient = pool.borrow();
+                if (!ftpClient.changeWorkingDirectory(serverPath)) {
+                    throw new FileNotFoundException("ftp目录不存在: " + serverPath);
                 }
-                String pathName = localPath + File.separator + ftpFile.getName();
-                File localFile = new File(pathName);
-                is = new FileOutputStream(localFile);
-                ftpClient.retrieveFile(ftpFile.getName(), is);
+                long remoteSize = remoteSize(ftpClient, serverFileName);
+                long offset = localFile.length();
+                if (remoteSize >= 0 && offset > remoteSize) {
+                    // 本地文件比ftp上的还大，说明ftp文件已被替换，重新下载
+                    offset = 0;
+                    startOffset = 0;
+                }
+                boolean success = remoteSize >= 0 && offset == remoteSize;
+                if (!success) {
+                    ftpClient.setRestartOffset(offset);
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(localFile, offset > 0))) {
+                        success = ftpClient.retrieveFile(serverFileName, out);
+                    }
+                }
+                success = success && (remoteSize < 0 || localFile.length() == remoteSize);
+                completed = true;
+                return new FtpTransferResult(serverFileName, localFile, startOffset, localFile.length() - startOffset,
+                        System.currentTimeMillis() - start, success, null);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                finish(ftpClient, completed);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
+        }
+        return new FtpTransferResult(serverFileName, localFile, startOffset, localFile.length() - startOffset,
+                System.currentTimeMillis() - start, false, error);
+    }
+
+    /**
+     * 断点续传上传文件到ftp。ftp上已有部分文件时从其末尾继续追加，传输中断时换一个连接重试，
+     * 完成后核对ftp文件大小与本地文件大小是否一致。
+     *
+     * @param serverPath     ftp文件路径
+     * @param serverFilename ftp文件名称
+     * @param originFilePath 源文件路径
+     * @param maxAttempts    最多尝试次数
+     * @return 上传结果，offset为续传开始时ftp上已有的字节数
+     */
+    public FtpTransferResult uploadResume(String serverPath, String serverFilename, String originFilePath, int maxAttempts) {
+        File localFile = new File(originFilePath);
+        long start = System.currentTimeMillis();
+        long startOffset = -1;
+        long offset = 0;
+        IOException error = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            FTPClient ftpClient = null;
+            boolean completed = false;
             try {
-                if (is != null) {
-                    is.close();
+                ftpClient = pool.borrow();
+                if (!ftpClient.changeWorkingDirectory(serverPath)) {
+                    ftpClient.makeDirectory(serverPath);
+                    ftpClient.changeWorkingDirectory(serverPath);
+                }
+                offset = Math.max(0, remoteSize(ftpClient, serverFilename));
+                if (offset > localFile.length()) {
+                    // ftp上的文件比本地的还大，不是同一个文件，重新上传
+                    offset = 0;
+                }
+                if (startOffset < 0) {
+                    startOffset = offset;
+                }
+                boolean success = offset == localFile.length() && offset > 0;
+                if (!success) {
+                    try (FileChannel channel = FileChannel.open(localFile.toPath(), StandardOpenOption.READ);
+                         InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(offset)))) {
+                        success = offset > 0 ? ftpClient.appendFile(serverFilename, in) : ftpClient.storeFile(serverFilename, in);
+                    }
                 }
+                long remoteSize = remoteSize(ftpClient, serverFilename);
+                success = success && (remoteSize < 0 || remoteSize == localFile.length());
+                completed = true;
+                return new FtpTransferResult(serverFilename, localFile, startOffset, localFile.length() - startOffset,
+                        System.currentTimeMillis() - start, success, null);
             } catch (IOException e) {
-                e.printStackTrace();
+                error = e;
+            } finally {
+                finish(ftpClient, completed);
+            }
+        }
+        return new FtpTransferResult(serverFilename, localFile, Math.max(0, startOffset), offset - Math.max(0, startOffset),
+                System.currentTimeMillis() - start, false, error);
+    }
+
+    /**
+     * 读取ftp文件的一段内容。
+     *
+     * @param serverPath     ftp路径
+     * @param serverFileName ftp文件名
+     * @param offset         起始偏移量
+     * @param length         读取的字节数，小于0时读到文件末尾
+     * @param out            输出流，不会被关闭
+     * @return 实际读取的字节数
+     * @throws IOException 读取失败
+     */
+    public long readRange(String serverPath, String serverFileName, long offset, long length, OutputStream out) throws IOException {
+        FTPClient ftpClient = pool.borrow();
+        boolean completed = false;
+        try {
+            if (!ftpClient.changeWorkingDirectory(serverPath)) {
+                throw new FileNotFoundException("ftp目录不存在: " + serverPath);
+            }
+            ftpClient.setRestartOffset(offset);
+            InputStream in = ftpClient.retrieveFileStream(serverFileName);
+            if (in == null) {
+                // PASV/PORT失败时REST可能还没有发送，连接状态不确定，作废
+                throw new FileNotFoundException("ftp文件读取失败: " + serverFileName + ", 返回码:" + ftpClient.getReplyCode());
+            }
+            long total = 0;
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((length < 0 || total < length)
+                        && (read = in.read(buffer, 0, length < 0 ? buffer.length : (int) Math.min(buffer.length, length - total))) != -1) {
+                    out.write(buffer, 0, read);
+                    total += read;
+                }
+            } finally {
+                in.close();
+            }
+            // 未读到末尾就关闭数据连接时服务器会返回失败，连接会被作废
+            completed = ftpClient.completePendingCommand();
+            return total;
+        } finally {
+            if (completed) {
+                pool.release(ftpClient);
+            } else {
+                pool.invalidate(ftpClient);
             }
         }
     }
 
+    /**
+     * 读取ftp文件末尾的内容，用于查看持续增长的日志文件。
+     *
+     * @param serverPath     ftp路径
+     * @param serverFileName ftp文件名
+     * @param bytes          读取末尾的字节数
+     * @param out            输出流，不会被关闭
+     * @return 实际读取的字节数
+     * @throws IOException 读取失败
+     */
+    public long tail(String serverPath, String serverFileName, long bytes, OutputStream out) throws IOException {
+        long size;
+        FTPClient ftpClient = pool.borrow();
+        try {
+            if (!ftpClient.changeWorkingDirectory(serverPath)) {
+                throw new FileNotFoundException("ftp目录不存在: " + serverPath);
+            }
+            size = remoteSize(ftpClient, serverFileName);
+        } finally {
+            pool.release(ftpClient);
+        }
+        if (size < 0) {
+            throw new FileNotFoundException("无法获取ftp文件大小: " + serverFileName);
+        }
+        return readRange(serverPath, serverFileName, Math.max(0, size - bytes), -1, out);
+    }
+
+    // 获取ftp文件大小，优先使用SIZE命令，不支持时使用MLST，都失败返回-1
+    private long remoteSize(FTPClient ftpClient, String fileName) throws IOException {
+        String size = ftpClient.getSize(fileName);
+        if (size != null) {
+            try {
+                return Long.parseLong(size.trim());
+            } catch (NumberFormatException ignored) {
+                // 非标准返回，继续尝试MLST
+            }
+        }
+        if (FTPReply.isPositiveCompletion(ftpClient.getReplyCode()) || ftpClient.getReplyCode() == FTPReply.FILE_UNAVAILABLE) {
+            return -1;
+        }
+        FTPFile ftpFile = ftpClient.mlistFile(fileName);
+        return ftpFile != null ? ftpFile.getSize() : -1;
+    }
+
+    /**
+     * 下载ftp指定目录的所有文件。
+     *
+     * @param serverPath ftp目录
+     * @param localPath  要下载到的本地目录
+     */
+    public void downloadAllFile(String serverPath, String localPath) {
+        downloadAllFile(serverPath, localPath, null, 1);
+    }
+
     /**
      * 下载ftp上名称包含指定关键字的所有文件。
      *
@@ -302,49 +711,387 @@ public class FtpClientUtils {
      * @param keyword    名称关键字
      */
     public void downloadAllFile(String serverPath, String localPath, String keyword) {
+        downloadAllFile(serverPath, localPath, keyword, 1);
+    }
+
+    /**
+     * 使用多个连接并行下载ftp上名称包含指定关键字的所有文件。
+     * 文件列表分给parallelism个工作线程，每个线程从连接池借一个连接依次下载分到的文件，
+     * 实际并行数不超过文件数和连接池的最大连接数。
+     *
+     * @param serverPath  ftp路径
+     * @param localPath   本地路径
+     * @param keyword     名称关键字，为null时下载所有文件
+     * @param parallelism 并行连接数
+     * @return 每个文件的下载结果，顺序与ftp列表顺序一致；列出目录失败时为空列表
+     */
+    public List<FtpTransferResult> downloadAllFile(String serverPath, String localPath, String keyword, int parallelism) {
         File file = new File(localPath);
         if (!file.exists()) {
-            file.mkdir();
+            file.mkdirs();
         }
-        OutputStream is = null;
+        List<FTPFile> files = new ArrayList<>();
+        FTPClient ftpClient = null;
+        boolean completed = false;
         try {
-            ftpClient.changeWorkingDirectory(serverPath);// 转移到FTP服务器目录
-            ftpClient.enterLocalPassiveMode();
-            ftpClient.setRemoteVerificationEnabled(false);
+            ftpClient = pool.borrow();
+            if (!ftpClient.changeWorkingDirectory(serverPath)) {// 转移到FTP服务器目录
+                completed = true;
+                return new ArrayList<>();
+            }
             FTPFile[] ftpFiles = ftpClient.listFiles();
+            completed = true;
             for (FTPFile ftpFile : ftpFiles) {
-                if (!ftpFile.isFile() || !ftpFile.getName().contains(keyword)) {
-                    continue;
+                if (ftpFile.isFile() && (keyword == null || ftpFile.getName().contains(keyword))) {
+                    files.add(ftpFile);
                 }
-                String pathName = localPath + File.separator + ftpFile.getName();
-                File localFile = new File(pathName);
-                is = new FileOutputStream(localFile);
-                ftpClient.retrieveFile(ftpFile.getName(), is);
             }
         } catch (IOException e) {
             e.printStackTrace();
+            return new ArrayList<>();
         } finally {
-            try {
-                if (is != null) {
-                    is.close();
+            finish(ftpClient, completed);
+        }
+        return downloadFiles(serverPath, localPath, files, parallelism);
+    }
+
+    // 多个连接并行下载同一目录下的文件，每个文件都有一个结果
+    private List<FtpTransferResult> downloadFiles(String serverPath, String localPath, List<FTPFile> files, int parallelism) {
+        FtpTransferResult[] results = new FtpTransferResult[files.size()];
+        long[] starts = new long[files.size()];
+        RuntimeException failure = null;
+        try {
+            runParallel(files, parallelism, (ftpClient, index, ftpFile) -> {
+                File localFile = new File(localPath, ftpFile.getName());
+                starts[index] = System.currentTimeMillis();
+                boolean success;
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(localFile))) {
+                    success = ftpClient.retrieveFile(childPath(serverPath, ftpFile.getName()), out);
                 }
-            } catch (IOException e) {
+                results[index] = new FtpTransferResult(ftpFile.getName(), localFile, localFile.length(), System.currentTimeMillis() - starts[index], success, null);
+            }, (index, ftpFile, e) -> {
                 e.printStackTrace();
+                File localFile = new File(localPath, ftpFile.getName());
+                long elapsed = starts[index] > 0 ? System.currentTimeMillis() - starts[index] : 0;
+                results[index] = new FtpTransferResult(ftpFile.getName(), localFile, localFile.length(), elapsed, false, e);
+            });
+        } catch (RuntimeException e) {
+            // 工作线程失败，没有结果的文件记为失败
+            e.printStackTrace();
+            failure = e;
+        }
+        List<FtpTransferResult> list = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            list.add(results[i] != null ? results[i]
+                    : new FtpTransferResult(files.get(i).getName(), new File(localPath, files.get(i).getName()), 0, 0, false, failure));
+        }
+        return list;
+    }
+
+    /**
+     * 并行处理：启动多个工作线程，每个线程从连接池借一个连接，依次领取元素处理，
+     * 处理出错时作废该连接，下一个元素换新连接。实际并行数不超过元素数和连接池的最大连接数。
+     * 每个元素要么处理完成，要么交给onError；等待时被中断则不再处理剩下的元素，剩下的元素以InterruptedIOException交给onError。
+     * 工作线程本身失败(onError抛出异常或Error)时，等其他线程结束后抛出。
+     */
+    private <T> void runParallel(List<T> items, int parallelism, FtpTask<T> task, FtpErrorHandler<T> onError) {
+        int workers = Math.max(1, Math.min(Math.min(parallelism, items.size()), pool.getMaxTotal()));
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Runnable worker = () -> {
+            FTPClient ftpClient = null;
+            try {
+                int index;
+                while ((index = next.getAndIncrement()) < items.size()) {
+                    T item = items.get(index);
+                    if (cancelled.get()) {
+                        onError.onError(index, item, new InterruptedIOException("已取消"));
+                        continue;
+                    }
+                    try {
+                        if (ftpClient == null) {
+                            ftpClient = pool.borrow();
+                        }
+                        task.run(ftpClient, index, item);
+                    } catch (IOException | RuntimeException e) {
+                        if (ftpClient != null) {
+                            pool.invalidate(ftpClient);
+                            ftpClient = null;
+                        }
+                        onError.onError(index, item, e);
+                    }
+                }
+            } finally {
+                if (ftpClient != null) {
+                    pool.release(ftpClient);
+                }
             }
+        };
+        if (workers == 1) {
+            worker.run();
+            return;
         }
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        Throwable failure = null;
+        boolean interrupted = false;
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(worker));
+            }
+            // 被中断后继续等待，工作线程会把剩下的元素交给onError后很快结束
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        cancelled.set(true);
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        } else {
+                            failure.addSuppressed(e.getCause());
+                        }
+                        break;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw failure instanceof RuntimeException ? (RuntimeException) failure : new RuntimeException(failure);
+        }
+    }
+
+    // 传输已完成时归还连接，否则作废，避免下一个使用者读到上次传输残留的应答
+    private void finish(FTPClient ftpClient, boolean completed) {
+        if (ftpClient == null) {
+            return;
+        }
+        if (completed) {
+            pool.release(ftpClient);
+        } else {
+            pool.invalidate(ftpClient);
+        }
+    }
+
+    // 拼接ftp路径
+    private static String childPath(String dir, String name) {
+        return dir.endsWith("/") ? dir + name : dir + "/" + name;
+    }
+
+    private interface FtpTask<T> {
+        void run(FTPClient ftpClient, int index, T item) throws IOException;
+    }
+
+    private interface FtpErrorHandler<T> {
+        void onError(int index, T item, Exception e);
     }
 
     /**
-     * 释放资源
+     * 增量同步ftp目录到本地，只下载新增或大小、修改时间有变化的文件。
+     * 已同步文件的信息按文件名排序记录在本地目录的索引文件{@value FtpSyncIndex#INDEX_FILE_NAME}中，ftp上与索引同名的文件不会被同步。
+     * 服务器支持MLSD时使用MLSD获取精确的修改时间；目录列表逐条读取并在本地按文件名外部排序，
+     * 再与索引逐条归并，有变化的文件边归并边下载，内存中只保留一批列表记录和有限个未完成的下载，不随目录大小增长。
+     *
+     * @param serverPath    ftp目录
+     * @param localPath     本地目录
+     * @param deleteRemoved ftp上已删除的文件是否同时删除本地文件
+     * @param parallelism   并行下载的连接数
+     * @return 同步结果
+     * @throws IOException 列出目录或读写索引失败，此时索引保持不变
      */
-    public void release() {
+    public FtpSyncResult syncDirectory(String serverPath, String localPath, boolean deleteRemoved, int parallelism) throws IOException {
+        File localDir = new File(localPath);
+        if (!localDir.exists()) {
+            localDir.mkdirs();
+        }
+        try (FtpSyncIndex index = new FtpSyncIndex(localDir);
+             FtpSyncIndex.Spool listing = new FtpSyncIndex.Spool()) {
+            int listed = listSyncFiles(serverPath, listing);
+            FtpSyncIndex.Cursor remote = listing.sorted();
+            FtpSyncIndex.Cursor previous = index.previous();
+            int workers = Math.max(1, Math.min(parallelism, pool.getMaxTotal()));
+            // 按文件名顺序排队的文件，未变化的文件没有future；队首完成后才写入索引，保证索引有序
+            Deque<SyncEntry> window = new ArrayDeque<>();
+            int windowSize = workers * 16;
+            List<FtpTransferResult> failures = new ArrayList<>();
+            int unchanged = 0;
+            int downloaded = 0;
+            int deleted = 0;
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+            try {
+                FtpSyncIndex.Record file = remote.next();
+                FtpSyncIndex.Record old = previous.next();
+                while (file != null || old != null) {
+                    int order = file == null ? 1 : old == null ? -1 : file.name.compareTo(old.name);
+                    if (order > 0) {
+                        // 只在索引中，ftp上已删除
+                        if (deleteRemoved && new File(localDir, old.name).delete()) {
+                            deleted++;
+                        }
+                        old = previous.next();
+                        continue;
+                    }
+                    if (order == 0 && old.size == file.size && old.timestamp == file.timestamp
+                            && new File(localDir, file.name).length() == file.size) {
+                        unchanged++;
+                        window.add(new SyncEntry(file, null));
+                    } else {
+                        FtpSyncIndex.Record changed = file;
+                        window.add(new SyncEntry(file, executor.submit(() -> syncFile(serverPath, localDir, changed))));
+                    }
+                    if (order == 0) {
+                        old = previous.next();
+                    }
+                    file = remote.next();
+                    downloaded += drainSynced(window, index, failures, windowSize);
+                }
+                downloaded += drainSynced(window, index, failures, 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("同步被中断: " + serverPath);
+            } finally {
+                executor.shutdownNow();
+            }
+            index.commit();
+            return new FtpSyncResult(listed, unchanged, downloaded, deleted, failures);
+        }
+    }
+
+    // 逐条读取ftp目录列表，把要同步的文件加入listing，返回文件数
+    private int listSyncFiles(String serverPath, FtpSyncIndex.Spool listing) throws IOException {
+        FTPClient ftpClient = pool.borrow();
+        boolean completed = false;
         try {
-            this.ftpClient.logout();
-            this.ftpClient.disconnect();
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
+            if (!ftpClient.changeWorkingDirectory(serverPath)) {
+                completed = true;
+                throw new FileNotFoundException("ftp目录不存在: " + serverPath);
+            }
+            boolean mlsd = ftpClient.hasFeature(FTPCmd.MLST);
+            FTPFileEntryParser parser = mlsd ? MLSxEntryParser.getInstance() : listParser(ftpClient);
+            InputStream in = ((FtpClientPool.ListingClient) ftpClient).openListing(mlsd ? "MLSD" : "LIST");
+            if (in == null) {
+                throw new IOException("列出ftp目录失败: " + serverPath + ", " + ftpClient.getReplyString());
+            }
+            int listed = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, ftpClient.getControlEncoding()))) {
+                String entry;
+                while ((entry = parser.readNextEntry(reader)) != null) {
+                    FTPFile ftpFile = parser.parseFTPEntry(entry);
+                    if (ftpFile == null || !ftpFile.isFile() || !isSyncName(ftpFile.getName())) {
+                        continue;
+                    }
+                    long timestamp = ftpFile.getTimestamp() != null ? ftpFile.getTimestamp().getTimeInMillis() : -1;
+                    listing.add(new FtpSyncIndex.Record(ftpFile.getName(), ftpFile.getSize(), timestamp));
+                    listed++;
+                }
+            }
+            if (!ftpClient.completePendingCommand()) {
+                throw new IOException("列出ftp目录失败: " + serverPath + ", " + ftpClient.getReplyString());
+            }
+            completed = true;
+            return listed;
+        } finally {
+            finish(ftpClient, completed);
+        }
+    }
+
+    // 按服务器类型选择LIST的解析器，无法识别时按UNIX格式解析
+    private static FTPFileEntryParser listParser(FTPClient ftpClient) {
+        try {
+            return new DefaultFTPFileEntryParserFactory().createFileEntryParser(ftpClient.getSystemType());
+        } catch (IOException | ParserInitializationException e) {
+            return new DefaultFTPFileEntryParserFactory().createFileEntryParser(FTPClientConfig.SYST_UNIX);
         }
     }
 
+    // 索引文件和不能作为本地文件名的名称不参与同步
+    private static boolean isSyncName(String name) {
+        return !name.isEmpty() && !".".equals(name) && !"..".equals(name)
+                && name.indexOf('/') < 0 && name.indexOf('\\') < 0
+                && !FtpSyncIndex.INDEX_FILE_NAME.equals(name) && !FtpSyncIndex.TEMP_FILE_NAME.equals(name);
+    }
+
+    // 下载一个文件，出错时返回失败结果
+    private FtpTransferResult syncFile(String serverPath, File localDir, FtpSyncIndex.Record file) {
+        File localFile = new File(localDir, file.name);
+        long start = System.currentTimeMillis();
+        FTPClient ftpClient = null;
+        boolean completed = false;
+        try {
+            ftpClient = pool.borrow();
+            boolean success;
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(localFile))) {
+                success = ftpClient.retrieveFile(childPath(serverPath, file.name), out);
+            }
+            completed = true;
+            return new FtpTransferResult(file.name, localFile, localFile.length(), System.currentTimeMillis() - start, success, null);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return new FtpTransferResult(file.name, localFile, localFile.length(), System.currentTimeMillis() - start, false, e);
+        } finally {
+            finish(ftpClient, completed);
+        }
+    }
+
+    // 按顺序取出已完成的文件写入索引，队列不少于limit个时等待队首完成；返回下载成功的文件数
+    private static int drainSynced(Deque<SyncEntry> window, FtpSyncIndex index, List<FtpTransferResult> failures, int limit)
+            throws IOException, InterruptedException {
+        int downloaded = 0;
+        while (!window.isEmpty() && (window.peek().download == null || window.peek().download.isDone() || window.size() > limit)) {
+            SyncEntry entry = window.poll();
+            if (entry.download != null) {
+                FtpTransferResult result;
+                try {
+                    result = entry.download.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("同步文件失败: " + entry.file.name, e.getCause());
+                }
+                if (!result.isSuccess()) {
+                    // 不写入索引，下次同步时重新下载
+                    failures.add(result);
+                    continue;
+                }
+                downloaded++;
+            }
+            index.append(entry.file);
+        }
+        return downloaded;
+    }
+
+    private static final class SyncEntry {
+        private final FtpSyncIndex.Record file;
+        private final Future<FtpTransferResult> download;
+
+        private SyncEntry(FtpSyncIndex.Record file, Future<FtpTransferResult> download) {
+            this.file = file;
+            this.download = download;
+        }
+    }
+
+    /**
+     * 释放资源，关闭连接池中的空闲连接。
+     */
+    public void release() {
+        pool.clear();
+    }
+
+    /**
+     * @return 使用的连接池
+     */
+    public FtpClientPool getPool() {
+        return pool;
+    }
+
 
 }
@@ -0,0 +1,235 @@
+package com.robot.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * FTP目录同步的本地索引文件，第一行是版本标记，之后每行记录一个已同步文件的 大小、修改时间、文件名，以制表符分隔，按文件名排序。
+ * 同步时按文件名顺序把索引与排好序的目录列表逐条归并，内存中只保留当前的记录。
+ * 新索引先写入临时文件，同步完成后再替换旧索引，同步中途失败时旧索引保持不变。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+class FtpSyncIndex implements Closeable {
+
+    /**
+     * 索引文件名，保存在本地同步目录下，ftp上同名的文件不会被同步
+     */
+    static final String INDEX_FILE_NAME = ".ftpsync.idx";
+    static final String TEMP_FILE_NAME = INDEX_FILE_NAME + ".tmp";
+    private static final String HEADER = "#ftpsync-index 2";
+    private static final Comparator<Record> BY_NAME = Comparator.comparing(record -> record.name);
+
+    private final Path indexFile;
+    private final Path tempFile;
+    private final BufferedWriter writer;
+    private final List<Closeable> resources = new ArrayList<>();
+
+    FtpSyncIndex(File localDir) throws IOException {
+        this.indexFile = new File(localDir, INDEX_FILE_NAME).toPath();
+        this.tempFile = new File(localDir, TEMP_FILE_NAME).toPath();
+        this.writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    /**
+     * 按文件名顺序读取上次同步的索引。没有版本标记的索引不是本格式写入的，当作没有索引，所有文件重新同步。
+     *
+     * @return 索引记录，没有索引时为空
+     * @throws IOException 读取失败
+     */
+    Cursor previous() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return () -> null;
+        }
+        BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8);
+        resources.add(reader);
+        if (!HEADER.equals(reader.readLine())) {
+            return () -> null;
+        }
+        return new FileCursor(reader);
+    }
+
+    /**
+     * 向新索引追加一条记录，必须按文件名顺序追加。
+     */
+    void append(Record record) throws IOException {
+        writer.write(Long.toString(record.size));
+        writer.write('\t');
+        writer.write(Long.toString(record.timestamp));
+        writer.write('\t');
+        writer.write(record.name);
+        writer.newLine();
+    }
+
+    /**
+     * 用新索引替换旧索引。
+     */
+    void commit() throws IOException {
+        writer.close();
+        closeResources();
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        closeResources();
+        Files.deleteIfExists(tempFile);
+    }
+
+    private void closeResources() throws IOException {
+        for (Closeable resource : resources) {
+            resource.close();
+        }
+        resources.clear();
+    }
+
+    /**
+     * 一个文件的名称、大小和修改时间
+     */
+    static final class Record {
+        final String name;
+        final long size;
+        final long timestamp;
+
+        Record(String name, long size, long timestamp) {
+            this.name = name;
+            this.size = size;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * 按顺序读取记录
+     */
+    @FunctionalInterface
+    interface Cursor {
+        /**
+         * @return 下一条记录，没有时为null
+         */
+        Record next() throws IOException;
+    }
+
+    // 逐行读取 大小、修改时间、文件名，跳过损坏的行，对应文件会被重新下载
+    private static final class FileCursor implements Cursor {
+        private final BufferedReader reader;
+
+        private FileCursor(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Record next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int first = line.indexOf('\t');
+                int second = first < 0 ? -1 : line.indexOf('\t', first + 1);
+                if (second < 0) {
+                    continue;
+                }
+                try {
+                    return new Record(line.substring(second + 1),
+                            Long.parseLong(line.substring(0, first)), Long.parseLong(line.substring(first + 1, second)));
+                } catch (NumberFormatException ignored) {
+                    // 损坏的行忽略
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 外部排序：记录每满一批就排序后写入临时文件，读取时把各临时文件按文件名归并，内存中最多保留一批记录。
+     */
+    static final class Spool implements Closeable {
+        private static final int RUN_SIZE = 10_000;
+
+        private final List<Record> buffer = new ArrayList<>();
+        private final List<Path> runs = new ArrayList<>();
+        private final List<BufferedReader> readers = new ArrayList<>();
+
+        void add(Record record) throws IOException {
+            buffer.add(record);
+            if (buffer.size() == RUN_SIZE) {
+                writeRun();
+            }
+        }
+
+        private void writeRun() throws IOException {
+            buffer.sort(BY_NAME);
+            Path run = Files.createTempFile("ftpsync", ".run");
+            runs.add(run);
+            try (BufferedWriter runWriter = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+                for (Record record : buffer) {
+                    runWriter.write(record.size + "\t" + record.timestamp + "\t" + record.name);
+                    runWriter.newLine();
+                }
+            }
+            buffer.clear();
+        }
+
+        /**
+         * 结束写入，按文件名顺序读取所有记录
+         */
+        Cursor sorted() throws IOException {
+            if (runs.isEmpty()) {
+                buffer.sort(BY_NAME);
+                Iterator<Record> iterator = buffer.iterator();
+                return () -> iterator.hasNext() ? iterator.next() : null;
+            }
+            if (!buffer.isEmpty()) {
+                writeRun();
+            }
+            // 每个临时文件的当前记录放在优先队列中，取出最小的一条后补充该文件的下一条
+            PriorityQueue<Object[]> heads = new PriorityQueue<>(runs.size(), Comparator.comparing(head -> ((Record) head[0]).name));
+            for (Path run : runs) {
+                BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+                readers.add(reader);
+                Cursor cursor = new FileCursor(reader);
+                Record first = cursor.next();
+                if (first != null) {
+                    heads.add(new Object[]{first, cursor});
+                }
+            }
+            return () -> {
+                Object[] head = heads.poll();
+                if (head == null) {
+                    return null;
+                }
+                Record next = ((Cursor) head[1]).next();
+                if (next != null) {
+                    heads.add(new Object[]{next, head[1]});
+                }
+                return (Record) head[0];
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+            readers.clear();
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.robot.utils;
+
+import java.util.List;
+
+/**
+ * FTP目录增量同步结果。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class FtpSyncResult {
+
+    /**
+     * ftp目录中的文件数
+     */
+    private final int listedCount;
+    /**
+     * 未变化而跳过的文件数
+     */
+    private final int unchangedCount;
+    /**
+     * 新增或变化而下载成功的文件数
+     */
+    private final int downloadedCount;
+    /**
+     * ftp上已删除、本地也随之删除的文件数
+     */
+    private final int deletedCount;
+    /**
+     * 下载失败的文件，这些文件下次同步时会重新下载
+     */
+    private final List<FtpTransferResult> failures;
+
+    FtpSyncResult(int listedCount, int unchangedCount, int downloadedCount, int deletedCount, List<FtpTransferResult> failures) {
+        this.listedCount = listedCount;
+        this.unchangedCount = unchangedCount;
+        this.downloadedCount = downloadedCount;
+        this.deletedCount = deletedCount;
+        this.failures = failures;
+    }
+
+    public int getListedCount() {
+        return listedCount;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public int getDownloadedCount() {
+        return downloadedCount;
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * @return 下载失败的文件数
+     */
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    /**
+     * @return 下载失败的文件的结果，成功下载的文件不保留结果
+     */
+    public List<FtpTransferResult> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FtpSyncResult{listed=%d, unchanged=%d, downloaded=%d, failed=%d, deleted=%d}",
+                listedCount, unchangedCount, downloadedCount, getFailedCount(), deletedCount);
+    }
+}
@@ -0,0 +1,89 @@
+package com.robot.utils;
+
+import java.io.File;
+
+/**
+ * 单个文件的FTP传输结果。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class FtpTransferResult {
+
+    /**
+     * ftp上的文件名
+     */
+    private final String remoteName;
+    /**
+     * 本地文件
+     */
+    private final File localFile;
+    /**
+     * 断点续传或按范围读取时的起始偏移量，完整传输为0
+     */
+    private final long offset;
+    /**
+     * 传输的字节数
+     */
+    private final long bytes;
+    /**
+     * 耗时(毫秒)
+     */
+    private final long elapsedMillis;
+    /**
+     * 是否成功
+     */
+    private final boolean success;
+    /**
+     * 失败时的异常，没有异常时为null
+     */
+    private final Exception error;
+
+    FtpTransferResult(String remoteName, File localFile, long bytes, long elapsedMillis, boolean success, Exception error) {
+        this(remoteName, localFile, 0, bytes, elapsedMillis, success, error);
+    }
+
+    FtpTransferResult(String remoteName, File localFile, long offset, long bytes, long elapsedMillis, boolean success, Exception error) {
+        this.remoteName = remoteName;
+        this.localFile = localFile;
+        this.offset = offset;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+        this.success = success;
+        this.error = error;
+    }
+
+    public String getRemoteName() {
+        return remoteName;
+    }
+
+    public File getLocalFile() {
+        return localFile;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FtpTransferResult{remoteName=%s, localFile=%s, offset=%d, bytes=%d, elapsedMillis=%d, success=%s}",
+                remoteName, localFile, offset, bytes, elapsedMillis, success);
+    }
+}
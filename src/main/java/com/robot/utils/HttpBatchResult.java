@@ -0,0 +1,71 @@
+package com.robot.utils;
+
+import okhttp3.Request;
+
+/**
+ * 批量请求中单个请求的结果。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class HttpBatchResult {
+
+    /**
+     * 请求在批次中的序号，从0开始，结果按完成顺序返回，可以用序号对应原请求
+     */
+    private final long index;
+    /**
+     * 请求
+     */
+    private final Request request;
+    /**
+     * 响应体，失败时为null
+     */
+    private final String body;
+    /**
+     * 耗时(毫秒)，包括重试
+     */
+    private final long elapsedMillis;
+    /**
+     * 失败时的异常，成功时为null
+     */
+    private final Throwable error;
+
+    HttpBatchResult(long index, Request request, String body, long elapsedMillis, Throwable error) {
+        this.index = index;
+        this.request = request;
+        this.body = body;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public Request getRequest() {
+        return request;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HttpBatchResult{index=%d, url=%s, elapsedMillis=%d, success=%s}",
+                index, request.url(), elapsedMillis, isSuccess());
+    }
+}
@@ -0,0 +1,82 @@
+package com.robot.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按主机熔断。
+ * <p>
+ * 同一主机连续失败达到阈值后熔断，熔断期间的请求直接失败；熔断时间过后放行一个试探请求，
+ * 成功则恢复，失败则重新熔断。网络异常和5xx响应计为失败。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+class HttpCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, HostState> states = new ConcurrentHashMap<>();
+
+    HttpCircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0 || openMillis <= 0) {
+            throw new IllegalArgumentException("failureThreshold和openMillis必须大于0");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 检查是否允许向该主机发送请求，熔断中时抛出异常。
+     */
+    void acquire(String host) {
+        HostState state = states.get(host);
+        if (state == null || state.openUntil == 0) {
+            return;
+        }
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            if (state.openUntil != 0 && now >= state.openUntil) {
+                // 放行一个试探请求，试探请求没有结果前，下一个熔断周期内的其他请求仍然直接失败
+                state.openUntil = now + openMillis;
+                state.probing = true;
+                return;
+            }
+        }
+        if (state.openUntil != 0) {
+            throw new RuntimeException("主机<" + host + ">请求连续失败，已熔断，暂停请求");
+        }
+    }
+
+    void onSuccess(String host) {
+        HostState state = states.get(host);
+        if (state != null) {
+            state.failures.set(0);
+            state.openUntil = 0;
+            state.probing = false;
+        }
+    }
+
+    void onFailure(String host) {
+        HostState state = states.computeIfAbsent(host, h -> new HostState());
+        if (state.failures.incrementAndGet() >= failureThreshold || state.probing) {
+            state.openUntil = System.currentTimeMillis() + openMillis;
+            state.probing = false;
+        }
+    }
+
+    /**
+     * 主机当前是否处于熔断状态。
+     */
+    boolean isOpen(String host) {
+        HostState state = states.get(host);
+        return state != null && state.openUntil != 0;
+    }
+
+    private static final class HostState {
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile boolean probing;
+        private volatile long openUntil;
+    }
+}
@@ -0,0 +1,160 @@
+package com.robot.utils;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSource;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link HttpUtil}请求压缩和响应解压的统计。
+ * <p>
+ * 请求体按压缩前后的字节数统计；响应按实际收到的压缩字节数和解压后的字节数统计，响应体读完时才计入。
+ * 压缩率为压缩后字节数除以原始字节数，没有数据时为1。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class HttpCompressionStats {
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder requestRawBytes = new LongAdder();
+    private final LongAdder requestCompressedBytes = new LongAdder();
+    private final LongAdder responseCount = new LongAdder();
+    private final LongAdder responseWireBytes = new LongAdder();
+    private final LongAdder responseDecodedBytes = new LongAdder();
+
+    HttpCompressionStats() {
+    }
+
+    /**
+     * 压缩发送的请求数
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getRequestRawBytes() {
+        return requestRawBytes.sum();
+    }
+
+    public long getRequestCompressedBytes() {
+        return requestCompressedBytes.sum();
+    }
+
+    public double getRequestRatio() {
+        return ratio(requestCompressedBytes.sum(), requestRawBytes.sum());
+    }
+
+    /**
+     * 解压读取的响应数
+     */
+    public long getResponseCount() {
+        return responseCount.sum();
+    }
+
+    public long getResponseWireBytes() {
+        return responseWireBytes.sum();
+    }
+
+    public long getResponseDecodedBytes() {
+        return responseDecodedBytes.sum();
+    }
+
+    public double getResponseRatio() {
+        return ratio(responseWireBytes.sum(), responseDecodedBytes.sum());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HttpCompressionStats{request=%d, %d->%d bytes, ratio=%.3f; response=%d, %d->%d bytes, ratio=%.3f}",
+                getRequestCount(), getRequestRawBytes(), getRequestCompressedBytes(), getRequestRatio(),
+                getResponseCount(), getResponseWireBytes(), getResponseDecodedBytes(), getResponseRatio());
+    }
+
+    private static double ratio(long compressed, long raw) {
+        return raw == 0 ? 1 : (double) compressed / raw;
+    }
+
+    /**
+     * gzip压缩请求体并计入统计
+     */
+    byte[] gzip(byte[] raw) {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            sink.write(raw);
+        } catch (IOException e) {
+            // 写入内存不会发生IO异常
+            throw new IllegalStateException(e);
+        }
+        byte[] compressed = buffer.readByteArray();
+        requestCount.increment();
+        requestRawBytes.add(raw.length);
+        requestCompressedBytes.add(compressed.length);
+        return compressed;
+    }
+
+    /**
+     * 网络拦截器：解压Content-Encoding为gzip的响应并统计。调用方自己设置了Accept-Encoding时okhttp不会解压，
+     * 这里统一处理，调用方拿到的总是解压后的响应体
+     */
+    Interceptor decodingInterceptor() {
+        return chain -> {
+            Response response = chain.proceed(chain.request());
+            ResponseBody body = response.body();
+            if (body == null || !"gzip".equalsIgnoreCase(response.header("Content-Encoding"))
+                    || "HEAD".equals(chain.request().method()) || response.code() == 204 || response.code() == 304) {
+                return response;
+            }
+            CountingSource wire = new CountingSource(body.source());
+            Source decoded = new CountingSource(new GzipSource(wire)) {
+                private boolean recorded;
+
+                @Override
+                void onExhausted(long decodedBytes) {
+                    if (!recorded) {
+                        recorded = true;
+                        responseCount.increment();
+                        responseWireBytes.add(wire.bytes);
+                        responseDecodedBytes.add(decodedBytes);
+                    }
+                }
+            };
+            return response.newBuilder()
+                    .removeHeader("Content-Encoding")
+                    .removeHeader("Content-Length")
+                    .body(ResponseBody.create(body.contentType(), -1L, Okio.buffer(decoded)))
+                    .build();
+        };
+    }
+
+    private static class CountingSource extends ForwardingSource {
+        long bytes;
+
+        CountingSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read == -1) {
+                onExhausted(bytes);
+            } else {
+                bytes += read;
+            }
+            return read;
+        }
+
+        void onExhausted(long bytes) {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.robot.utils;
+
+import okhttp3.FormBody;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link HttpUtil}的请求日志策略。
+ * <p>
+ * 关闭或未被采样的请求在日志级别检查之后直接返回，不会拼接任何字符串；
+ * 请求头、请求体、响应体都以参数形式交给日志框架，只有真正输出时才会格式化。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class HttpLogPolicy {
+
+    public enum Level {
+        /**
+         * 不记录
+         */
+        OFF,
+        /**
+         * 只记录请求方法、URL、响应状态和耗时
+         */
+        METADATA,
+        /**
+         * 在METADATA基础上记录请求头和截断后的请求体、响应体
+         */
+        TRUNCATED_BODY,
+        /**
+         * 记录完整的请求头、请求体和响应体
+         */
+        FULL
+    }
+
+    private static final HttpLogPolicy OFF = new HttpLogPolicy(Level.OFF, 0, 1);
+    private static final HttpLogPolicy METADATA = new HttpLogPolicy(Level.METADATA, 0, 1);
+    private static final HttpLogPolicy FULL = new HttpLogPolicy(Level.FULL, Integer.MAX_VALUE, 1);
+
+    private final Level level;
+    private final int maxBodyChars;
+    private final int sampleRate;
+
+    private HttpLogPolicy(Level level, int maxBodyChars, int sampleRate) {
+        this.level = level;
+        this.maxBodyChars = maxBodyChars;
+        this.sampleRate = sampleRate;
+    }
+
+    public static HttpLogPolicy off() {
+        return OFF;
+    }
+
+    public static HttpLogPolicy metadata() {
+        return METADATA;
+    }
+
+    /**
+     * @param maxBodyChars 请求体、响应体最多记录的字符数
+     */
+    public static HttpLogPolicy truncated(int maxBodyChars) {
+        if (maxBodyChars < 0) {
+            throw new IllegalArgumentException("maxBodyChars不能小于0");
+        }
+        return new HttpLogPolicy(Level.TRUNCATED_BODY, maxBodyChars, 1);
+    }
+
+    public static HttpLogPolicy full() {
+        return FULL;
+    }
+
+    /**
+     * 按相同级别，每N个请求随机记录1个。
+     *
+     * @param oneInN 采样间隔，1为全部记录
+     * @return 新的日志策略
+     */
+    public HttpLogPolicy sampled(int oneInN) {
+        if (oneInN <= 0) {
+            throw new IllegalArgumentException("oneInN必须大于0");
+        }
+        return new HttpLogPolicy(level, maxBodyChars, oneInN);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * 本次请求是否记录日志，每个请求只调用一次。
+     */
+    boolean shouldLog() {
+        return level != Level.OFF && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0);
+    }
+
+    /**
+     * 是否记录请求头和请求体、响应体。
+     */
+    boolean logsBody() {
+        return level == Level.TRUNCATED_BODY || level == Level.FULL;
+    }
+
+    /**
+     * 按策略截断后的文本，输出日志时才截断。
+     */
+    Object body(String text) {
+        if (text == null || text.length() <= maxBodyChars) {
+            return text;
+        }
+        return new Object() {
+            @Override
+            public String toString() {
+                return text.substring(0, maxBodyChars) + "...(共" + text.length() + "字符)";
+            }
+        };
+    }
+
+    /**
+     * 按策略截断后的请求体，输出日志时才读取。只读取内容已在内存中的请求体（FormBody、HttpUtil发送的文本、
+     * {@link HttpUploadBody#of(String, byte[])}），文件、输入流、multipart、非文本或已压缩的请求体只记录类型和长度。
+     */
+    Object body(Request request) {
+        RequestBody requestBody = request.body();
+        if (requestBody == null) {
+            return null;
+        }
+        return new Object() {
+            @Override
+            public String toString() {
+                try {
+                    long length = requestBody.contentLength();
+                    boolean inMemory = requestBody instanceof FormBody || requestBody instanceof HttpUploadBody.BytesBody;
+                    if (!inMemory || !isText(requestBody.contentType()) || request.header("Content-Encoding") != null) {
+                        return requestBody.contentType() + ", " + length + "字节";
+                    }
+                    Buffer buffer = new Buffer();
+                    requestBody.writeTo(buffer);
+                    return String.valueOf(body(buffer.readUtf8()));
+                } catch (IOException e) {
+                    return "请求体读取失败: " + e.getMessage();
+                }
+            }
+        };
+    }
+
+    private static boolean isText(MediaType mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+        String subtype = mediaType.subtype();
+        return "text".equals(mediaType.type()) || subtype.contains("json") || subtype.contains("xml")
+                || "x-www-form-urlencoded".equals(subtype);
+    }
+}
@@ -0,0 +1,222 @@
+package com.robot.utils;
+
+import okhttp3.CacheControl;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link HttpUtil#doGet}的内存响应缓存。
+ * <p>
+ * 按最近最少使用淘汰，超过条目上限时移除最久未访问的条目。条目在有效期内直接返回；过期后带上
+ * If-None-Match、If-Modified-Since重新验证，服务端返回304时继续使用缓存内容并刷新有效期。
+ * 只缓存带ETag或Last-Modified的响应，Cache-Control为no-store或带Vary响应头的不缓存；Cache-Control为no-cache，
+ * 或者must-revalidate且没有max-age的，每次都向服务端验证；其余带max-age的以max-age作为有效期。
+ * 相同请求同时只会有一个发到服务端，其余调用等待它的结果。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class HttpResponseCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, CachedResponse> entries;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder revalidatedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private HttpResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > HttpResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param maxEntries 最多缓存的响应数
+     * @param ttl        响应没有max-age时的有效期，为0时每次都向服务端验证
+     */
+    public static HttpResponseCache of(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0 || ttl < 0) {
+            throw new IllegalArgumentException("maxEntries必须大于0，ttl不能小于0！");
+        }
+        return new HttpResponseCache(maxEntries, unit.toMillis(ttl));
+    }
+
+    /**
+     * 有效期内直接返回的次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 没有可用缓存、从服务端读取完整响应的次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 服务端返回304、继续使用缓存内容的次数
+     */
+    public long getRevalidatedCount() {
+        return revalidatedCount.sum();
+    }
+
+    /**
+     * 等待相同的进行中请求、没有单独发送的次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 移除某个URL的缓存，URL需与请求时拼接参数后的完整URL一致
+     */
+    public synchronized void invalidate(String url) {
+        entries.keySet().removeIf(key -> key.startsWith(url + "\n"));
+    }
+
+    /**
+     * URL和请求头都相同的请求共用一个缓存条目
+     */
+    static String key(Request request) {
+        return request.url() + "\n" + request.headers();
+    }
+
+    synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 缓存响应内容。没有ETag和Last-Modified的响应过期后无法验证，不缓存；带Vary的响应内容随请求头变化，
+     * 而缓存只按原请求匹配，不知道服务端实际协商的请求头，也不缓存
+     */
+    void put(String key, Response response, String body) {
+        CacheControl cacheControl = response.cacheControl();
+        if (cacheControl.noStore() || response.header("Vary") != null) {
+            return;
+        }
+        CachedResponse entry = new CachedResponse(body, response.header("ETag"), response.header("Last-Modified"), ttl(cacheControl));
+        if (!entry.isRevalidatable()) {
+            return;
+        }
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * 服务端返回304后刷新条目的有效期，304带了新的Cache-Control或验证头时一并更新，否则沿用原响应的
+     */
+    void refresh(String key, CachedResponse entry, Response response) {
+        CacheControl cacheControl = response.cacheControl();
+        long ttl = response.header("Cache-Control") != null ? ttl(cacheControl) : entry.ttlMillis;
+        synchronized (this) {
+            if (cacheControl.noStore() || response.header("Vary") != null) {
+                entries.remove(key);
+                return;
+            }
+            entries.put(key, new CachedResponse(entry.body, response.header("ETag", entry.etag),
+                    response.header("Last-Modified", entry.lastModified), ttl));
+        }
+    }
+
+    /**
+     * no-cache，或者must-revalidate且没有max-age时有效期为0，每次都向服务端验证
+     */
+    private long ttl(CacheControl cacheControl) {
+        if (cacheControl.noCache() || (cacheControl.mustRevalidate() && cacheControl.maxAgeSeconds() < 0)) {
+            return 0;
+        }
+        return cacheControl.maxAgeSeconds() >= 0 ? TimeUnit.SECONDS.toMillis(cacheControl.maxAgeSeconds()) : ttlMillis;
+    }
+
+    Map<String, CompletableFuture<String>> inFlight() {
+        return inFlight;
+    }
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    void recordRevalidated() {
+        revalidatedCount.increment();
+    }
+
+    void recordCoalesced() {
+        coalescedCount.increment();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HttpResponseCache{size=%d, hit=%d, miss=%d, revalidated=%d, coalesced=%d}",
+                size(), getHitCount(), getMissCount(), getRevalidatedCount(), getCoalescedCount());
+    }
+
+    static final class CachedResponse {
+        final String body;
+        final String etag;
+        final String lastModified;
+        final long ttlMillis;
+        final long expiresAt;
+
+        private CachedResponse(String body, String etag, String lastModified, long ttlMillis) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.ttlMillis = ttlMillis;
+            this.expiresAt = System.currentTimeMillis() + ttlMillis;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        boolean isRevalidatable() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * 在原请求上加上条件请求头
+         */
+        Request conditional(Request request) {
+            Request.Builder builder = request.newBuilder();
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+            return builder.build();
+        }
+    }
+}
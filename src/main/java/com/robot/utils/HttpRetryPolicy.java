@@ -0,0 +1,115 @@
+package com.robot.utils;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link HttpUtil}的重试策略。
+ * <p>
+ * 只重试幂等的请求方法（GET、HEAD、OPTIONS、PUT、DELETE），在网络异常或响应码为408、429、502、503、504时重试，
+ * 重试间隔为带随机抖动的指数退避；响应带有Retry-After时按其指定的时间等待，超过最大间隔则不再重试。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class HttpRetryPolicy {
+
+    private static final HttpRetryPolicy NONE = new HttpRetryPolicy(1, 0, 0);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private HttpRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * 不重试。
+     */
+    public static HttpRetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * @param maxAttempts     最多尝试次数，包括第一次请求
+     * @param baseDelayMillis 第一次重试的最大间隔，之后每次翻倍
+     * @param maxDelayMillis  重试间隔上限
+     */
+    public static HttpRetryPolicy of(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1 || baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("maxAttempts必须大于0，且0 <= baseDelayMillis <= maxDelayMillis");
+        }
+        return new HttpRetryPolicy(maxAttempts, baseDelayMillis, maxDelayMillis);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * 请求方法是否幂等、可以重试。
+     */
+    boolean isRetryableMethod(String method) {
+        switch (method) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 响应码是否可以重试。
+     */
+    boolean isRetryableStatus(int code) {
+        return code == 408 || code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * 计算第attempt次请求失败后的等待时间。
+     *
+     * @param attempt    已经进行的请求次数，从1开始
+     * @param retryAfter 响应头Retry-After的值，可以为null
+     * @return 等待的毫秒数，小于0表示不再重试
+     */
+    long delayMillis(int attempt, String retryAfter) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        if (retryAfter != null) {
+            long delay = parseRetryAfter(retryAfter);
+            if (delay >= 0) {
+                return delay <= maxDelayMillis ? delay : -1;
+            }
+        }
+        long cap = baseDelayMillis;
+        for (int i = 1; i < attempt && cap < maxDelayMillis; i++) {
+            cap = Math.min(maxDelayMillis, cap * 2);
+        }
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    // Retry-After可以是秒数或HTTP日期，无法解析时返回-1
+    private static long parseRetryAfter(String value) {
+        String text = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(text) * 1000);
+        } catch (NumberFormatException ignored) {
+            // 不是秒数，按HTTP日期解析
+        }
+        try {
+            return Math.max(0, ZonedDateTime.parse(text, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
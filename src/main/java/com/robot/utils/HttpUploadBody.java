@@ -0,0 +1,252 @@
+package com.robot.utils;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.GzipSink;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 上传用的流式请求体，配合{@link HttpUtil#upload}使用。
+ * <p>
+ * 请求体在发送时才读取数据源，不会整体读入内存；长度未知的请求体（输入流、gzip压缩后）以chunked方式发送。
+ * 多个部分的表单用{@link #multipart()}组装，每个部分可以是这里的任意一种请求体。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class HttpUploadBody {
+
+    private static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
+
+    private HttpUploadBody() {
+    }
+
+    /**
+     * 上传进度回调，在发送请求体的线程中调用。
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param bytesWritten  已发送的字节数
+         * @param contentLength 请求体总长度，未知时为-1
+         */
+        void onProgress(long bytesWritten, long contentLength);
+    }
+
+    /**
+     * 从输入流读取的请求体，长度未知，以chunked方式发送。只能发送一次，失败时不会重试，发送完成后关闭输入流。
+     *
+     * @param mediaTypeStr MIME-Type，为null时为application/octet-stream
+     */
+    public static RequestBody of(String mediaTypeStr, InputStream inputStream) {
+        Objects.requireNonNull(inputStream, "inputStream不能为null！");
+        MediaType mediaType = mediaType(mediaTypeStr);
+        AtomicBoolean consumed = new AtomicBoolean();
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return true;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                if (!consumed.compareAndSet(false, true)) {
+                    throw new IOException("输入流请求体只能发送一次");
+                }
+                try (Source source = Okio.source(inputStream)) {
+                    sink.writeAll(source);
+                }
+            }
+        };
+    }
+
+    /**
+     * 字节数组请求体
+     */
+    public static RequestBody of(String mediaTypeStr, byte[] bytes) {
+        return new BytesBody(mediaType(mediaTypeStr), Objects.requireNonNull(bytes, "bytes不能为null！"));
+    }
+
+    /**
+     * 文本请求体，按mediaType中的字符集编码，没有字符集时使用UTF-8并加到mediaType中，与RequestBody.create(MediaType, String)一致
+     */
+    static RequestBody text(MediaType mediaType, String text) {
+        Charset charset = mediaType.charset();
+        if (charset == null) {
+            charset = StandardCharsets.UTF_8;
+            mediaType = MediaType.get(mediaType + "; charset=utf-8");
+        }
+        return new BytesBody(mediaType, text.getBytes(charset));
+    }
+
+    /**
+     * 整个文件作为请求体
+     */
+    public static RequestBody of(String mediaTypeStr, Path path) {
+        try {
+            return of(mediaTypeStr, path, 0, Files.size(path));
+        } catch (IOException e) {
+            throw new RuntimeException("读取文件大小异常: " + path, e);
+        }
+    }
+
+    /**
+     * 文件中从offset开始、长度为length的片段作为请求体，用于分片上传，发送时才打开文件
+     */
+    public static RequestBody of(String mediaTypeStr, Path path, long offset, long length) {
+        Objects.requireNonNull(path, "path不能为null！");
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("offset和length不能小于0！");
+        }
+        MediaType mediaType = mediaType(mediaTypeStr);
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                     Source source = Okio.source(Channels.newInputStream(channel.position(offset)))) {
+                    sink.write(source, length);
+                }
+            }
+        };
+    }
+
+    /**
+     * 多部分表单的构建器，类型为multipart/form-data；有长度未知的部分时整个表单以chunked方式发送
+     */
+    public static MultipartBody.Builder multipart() {
+        return new MultipartBody.Builder().setType(MultipartBody.FORM);
+    }
+
+    /**
+     * 发送时进行gzip压缩，压缩后长度未知
+     */
+    static RequestBody gzip(RequestBody body) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return body.isOneShot();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                // 关闭gzipSink以写出压缩尾部，但不关闭外层sink
+                BufferedSink gzipSink = Okio.buffer(new GzipSink(new ForwardingSink(sink) {
+                    @Override
+                    public void close() {
+                    }
+                }));
+                body.writeTo(gzipSink);
+                gzipSink.close();
+            }
+        };
+    }
+
+    /**
+     * 发送时统计已写出的字节数并回调listener
+     */
+    static RequestBody progress(RequestBody body, ProgressListener listener) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public long contentLength() throws IOException {
+                return body.contentLength();
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return body.isOneShot();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                long contentLength = contentLength();
+                BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink) {
+                    private long bytesWritten;
+
+                    @Override
+                    public void write(Buffer source, long byteCount) throws IOException {
+                        super.write(source, byteCount);
+                        bytesWritten += byteCount;
+                        listener.onProgress(bytesWritten, contentLength);
+                    }
+                });
+                body.writeTo(countingSink);
+                // 只刷新缓冲，底层sink由okhttp关闭
+                countingSink.emit();
+            }
+        };
+    }
+
+    /**
+     * 内容已在内存中的请求体，{@link HttpLogPolicy}只记录这种请求体和FormBody的内容，不会为记录日志读取文件或输入流
+     */
+    static final class BytesBody extends RequestBody {
+        private final MediaType mediaType;
+        private final byte[] bytes;
+
+        private BytesBody(MediaType mediaType, byte[] bytes) {
+            this.mediaType = mediaType;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mediaType;
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.write(bytes);
+        }
+    }
+
+    private static MediaType mediaType(String mediaTypeStr) {
+        return MediaType.get(mediaTypeStr == null ? APPLICATION_OCTET_STREAM : mediaTypeStr);
+    }
+}
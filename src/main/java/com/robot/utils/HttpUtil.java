@@ -1,6 +1,7 @@
 package com.robot.utils;
 
 import okhttp3.*;
+import okio.BufferedSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,11 +10,41 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 基于okhttp的HTTP工具类</p>
@@ -23,7 +54,33 @@ public class HttpUtil {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpUtil.class);
     private static final String APPLICATION_JSON_UTF8 = "application/json; charset=utf-8";
     private static final String TEXT_PLAIN_UTF8 = "text/plain; charset=utf-8";
+    private static final long TRANSFER_CHUNK_BYTES = 64 * 1024;
+    /**
+     * 按配置共享的连接池和分发器，配置相同的命名实例共用同一个
+     */
+    private static final Map<String, ConnectionPool> SHARED_POOLS = new ConcurrentHashMap<>();
+    private static final Map<String, Dispatcher> SHARED_DISPATCHERS = new ConcurrentHashMap<>();
+    private static final Map<String, HttpUtil> NAMED_INSTS = new ConcurrentHashMap<>();
+    /**
+     * 磁盘缓存按目录共享，同一目录只能有一个Cache实例
+     */
+    private static final Map<String, Cache> SHARED_DISK_CACHES = new ConcurrentHashMap<>();
+    /**
+     * 重试等待和对冲请求的调度线程
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "http-util-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final OkHttpClient okHttpClient;
+    private volatile HttpLogPolicy logPolicy = HttpLogPolicy.full();
+    private final HttpRetryPolicy retryPolicy;
+    private final HttpCircuitBreaker circuitBreaker;
+    private final long hedgeDelayMillis;
+    private final HttpResponseCache responseCache;
+    private final int compressMinBytes;
+    private final HttpCompressionStats compressionStats;
     private volatile static HttpUtil inst;
 
     private HttpUtil() {
@@ -58,6 +115,24 @@ public class HttpUtil {
             throw new RuntimeException(e);
         }
         this.okHttpClient = builder.build();
+        this.retryPolicy = HttpRetryPolicy.none();
+        this.circuitBreaker = null;
+        this.hedgeDelayMillis = 0;
+        this.responseCache = null;
+        this.compressMinBytes = 0;
+        this.compressionStats = null;
+    }
+
+    private HttpUtil(OkHttpClient okHttpClient, Builder builder) {
+        this.okHttpClient = okHttpClient;
+        this.logPolicy = builder.logPolicy;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreaker = builder.circuitFailureThreshold > 0
+                ? new HttpCircuitBreaker(builder.circuitFailureThreshold, builder.circuitOpenMillis) : null;
+        this.hedgeDelayMillis = builder.hedgeDelayMillis;
+        this.responseCache = builder.responseCache;
+        this.compressMinBytes = builder.compressMinBytes;
+        this.compressionStats = builder.compressionStats;
     }
 
     public static HttpUtil getInst() {
@@ -71,6 +146,29 @@ public class HttpUtil {
         return inst;
     }
 
+    /**
+     * <p>Title: 获取命名实例</p>
+     * <p>Description: 实例需要先通过{@link #newBuilder(String)}创建</p>
+     * <p>Create Time: 2026/10/18 11:05</p>
+     */
+    public static HttpUtil getInst(String name) {
+        HttpUtil named = NAMED_INSTS.get(name);
+        if (named == null) {
+            throw new IllegalStateException("HttpUtil实例<" + name + ">未创建！");
+        }
+        return named;
+    }
+
+    /**
+     * <p>Title: 创建命名实例的构建器</p>
+     * <p>Description: 未配置的项沿用默认实例的设置（证书信任、60秒超时），并与默认实例共用连接池和分发器；
+     * 配置了连接池或并发数的实例使用独立的连接池或分发器，配置相同的实例之间仍然共用</p>
+     * <p>Create Time: 2026/10/18 11:05</p>
+     */
+    public static Builder newBuilder(String name) {
+        return new Builder(name);
+    }
+
     /**
      * <p>Title: 发送GET请求</p>
      * <p>Create Time: 2020/9/2 17:09</p>
@@ -92,22 +190,40 @@ public class HttpUtil {
      * <p>Create Time: 2020/9/2 17:09</p>
      */
     public String doGet(String url, Map<String, String> params, Map<String, String> headers) {
-        LOGGER.info("请求类型: <GET>, 请求URL: <{}>", url);
+        Request request = this.buildGet(url, params, headers);
+        return this.responseCache == null ? this.send(request) : this.sendCached(request);
+    }
+
+    /**
+     * <p>Title: 异步发送GET请求</p>
+     * <p>Create Time: 2026/10/18 10:12</p>
+     */
+    public CompletableFuture<String> doGetAsync(String url) {
+        return doGetAsync(url, null, null);
+    }
+
+    /**
+     * <p>Title: 异步发送GET请求</p>
+     * <p>Create Time: 2026/10/18 10:12</p>
+     */
+    public CompletableFuture<String> doGetAsync(String url, Map<String, String> params, Map<String, String> headers) {
+        return this.sendAsync(this.buildGet(url, params, headers));
+    }
+
+    private Request buildGet(String url, Map<String, String> params, Map<String, String> headers) {
         HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(url), "URL错误！请检查是否缺少协议、域名（或IP）、端口号！").newBuilder();
         Request.Builder requestBuilder = new Request.Builder();
         // 请求头设置
         if (Objects.nonNull(headers) && !headers.isEmpty()) {
-            LOGGER.info("请求头（值为null的会被过滤）: <{}>", headers.toString());
             this.removeEmptyValue(headers);
             requestBuilder.headers(Headers.of(headers));
         }
         // 请求参数设置
         if (Objects.nonNull(params) && !params.isEmpty()) {
-            LOGGER.info("请求参数（值为null的会被过滤）: <{}>", params.toString());
             this.removeEmptyValue(params);
             params.forEach(urlBuilder :: addEncodedQueryParameter);
         }
-        return this.send(requestBuilder.url(urlBuilder.build()).get().build());
+        return requestBuilder.url(urlBuilder.build()).get().build();
     }
 
     /**
@@ -134,40 +250,47 @@ public class HttpUtil {
      * <p>Create Time: 2020/9/2 16:59</p>
      */
     public String doPost(String url, Map<String, String> params, Map<String, String> headers) {
-        LOGGER.info("请求类型: <POST>, 请求URL: <{}>", url);
+        return this.send(this.buildPost(url, params, headers));
+    }
+
+    /**
+     * <p>Title: 异步发送POST请求</p>
+     * <p>Description: MIME-Type为application/x-www-form-urlencoded</p>
+     * <p>Create Time: 2026/10/18 10:12</p>
+     */
+    public CompletableFuture<String> doPostAsync(String url, Map<String, String> params, Map<String, String> headers) {
+        return this.sendAsync(this.buildPost(url, params, headers));
+    }
+
+    private Request buildPost(String url, Map<String, String> params, Map<String, String> headers) {
         Request.Builder requestBuilder = new Request.Builder().url(url);
         // 请求头设置
         if (Objects.nonNull(headers) && !headers.isEmpty()) {
-            LOGGER.info("请求头（值为null的会被过滤）: <{}>", headers.toString());
             this.removeEmptyValue(headers);
             requestBuilder.headers(Headers.of(headers));
         }
         // 请求体设置
         FormBody.Builder formBodyBuilder = new FormBody.Builder();
         if (Objects.nonNull(params) && !params.isEmpty()) {
-            LOGGER.info("请求体（值为null的会被过滤）: <{}>", params.toString());
             this.removeEmptyValue(params);
             params.forEach(formBodyBuilder :: add);
         }
-        return this.send(requestBuilder.post(formBodyBuilder.build()).build());
+        return requestBuilder.post(formBodyBuilder.build()).build();
     }
 
     /**
      * <p>Title: 发送文件</p>
-     * <p>Description: MIME-Type由调用方指定</p>
+     * <p>Description: MIME-Type由调用方指定；上传输入流、文件片段、多个部分或需要进度回调时使用{@link #upload}</p>
      * <p>Create Time: 2020/9/2 17:01</p>
      */
     public String postFile(String url, String mediaTypeStr, File file, Map<String, String> headers) {
-        LOGGER.info("发送文件, 请求URL: <{}>", url);
         Objects.requireNonNull(file, "file参数不能为null！");
         Request.Builder requestBuilder = new Request.Builder().url(url);
         // 请求头设置
         if (Objects.nonNull(headers) && !headers.isEmpty()) {
-            LOGGER.info("请求头（值为null的会被过滤）: <{}>", headers.toString());
             this.removeEmptyValue(headers);
             requestBuilder.headers(Headers.of(headers));
         }
-        LOGGER.info("MIME-type: <{}>, 文件路径名称: <{}>, 文件大小: <{}>字节", mediaTypeStr, file.getPath(), file.length());
         RequestBody requestBody = new MultipartBody.Builder()
                 .setType(MultipartBody.FORM)
                 .addFormDataPart("file", file.getName(), RequestBody.create(MediaType.get(mediaTypeStr), file))
@@ -175,15 +298,64 @@ public class HttpUtil {
         return this.send(requestBuilder.post(requestBody).build());
     }
 
+    /**
+     * <p>Title: 流式上传</p>
+     * <p>Description: 以POST发送body，body一般由{@link HttpUploadBody}创建，发送时才读取数据源；
+     * gzip为true时边发送边压缩，并设置Content-Encoding: gzip（需要服务端支持）；
+     * listener不为null时报告实际发出的字节数，压缩或长度未知时总长度为-1。输入流请求体失败时不会重试</p>
+     * <p>Create Time: 2026/10/18 15:40</p>
+     */
+    public String upload(String url, RequestBody body, Map<String, String> headers, boolean gzip, HttpUploadBody.ProgressListener listener) {
+        return this.send(this.buildUpload(url, body, headers, gzip, listener));
+    }
+
+    /**
+     * <p>Title: 异步流式上传</p>
+     * <p>Description: 参数含义同{@link #upload}</p>
+     * <p>Create Time: 2026/10/18 15:40</p>
+     */
+    public CompletableFuture<String> uploadAsync(String url, RequestBody body, Map<String, String> headers, boolean gzip,
+                                                 HttpUploadBody.ProgressListener listener) {
+        return this.sendAsync(this.buildUpload(url, body, headers, gzip, listener));
+    }
+
+    private Request buildUpload(String url, RequestBody body, Map<String, String> headers, boolean gzip, HttpUploadBody.ProgressListener listener) {
+        Objects.requireNonNull(body, "body参数不能为null！");
+        Request.Builder requestBuilder = new Request.Builder().url(url);
+        // 请求头设置
+        if (Objects.nonNull(headers) && !headers.isEmpty()) {
+            this.removeEmptyValue(headers);
+            requestBuilder.headers(Headers.of(headers));
+        }
+        RequestBody requestBody = body;
+        if (gzip) {
+            requestBody = HttpUploadBody.gzip(requestBody);
+            requestBuilder.header("Content-Encoding", "gzip");
+        }
+        if (listener != null) {
+            requestBody = HttpUploadBody.progress(requestBody, listener);
+        }
+        return requestBuilder.post(requestBody).build();
+    }
+
     /**
      * <p>Title: 发送文本</p>
      * <p>Description: MIME-Type为text/plain</p>
      * <p>Create Time: 2020/9/2 17:04</p>
      */
     public String postString(String url, String text, Map<String, String> headers) {
-        LOGGER.info("发送文本, 请求URL: <{}>", url);
         if (Objects.isNull(text) || text.isEmpty()) throw new NullPointerException("请求体文本不能为空！");
-        return postHandler(url, headers, TEXT_PLAIN_UTF8, text);
+        return this.send(buildPostBody(url, headers, TEXT_PLAIN_UTF8, text));
+    }
+
+    /**
+     * <p>Title: 异步发送文本</p>
+     * <p>Description: MIME-Type为text/plain</p>
+     * <p>Create Time: 2026/10/18 10:12</p>
+     */
+    public CompletableFuture<String> postStringAsync(String url, String text, Map<String, String> headers) {
+        if (Objects.isNull(text) || text.isEmpty()) throw new NullPointerException("请求体文本不能为空！");
+        return this.sendAsync(buildPostBody(url, headers, TEXT_PLAIN_UTF8, text));
     }
 
     /**
@@ -192,21 +364,112 @@ public class HttpUtil {
      * <p>Create Time: 2020/9/2 17:06</p>
      */
     public String postJson(String url, String jsonStr, Map<String, String> headers) {
-        LOGGER.info("发送json, 请求URL: <{}>", url);
         if (Objects.isNull(jsonStr) || jsonStr.isEmpty()) throw new NullPointerException("请求体json不能为空！");
-        return postHandler(url, headers, APPLICATION_JSON_UTF8, jsonStr);
+        return this.send(buildPostBody(url, headers, APPLICATION_JSON_UTF8, jsonStr));
     }
 
-    private String postHandler(String url, Map<String, String> headers, String mediaTypeStr, String requestBodyStr) {
+    /**
+     * <p>Title: 异步发送json格式的文本</p>
+     * <p>Description: MIME-Type为application/json</p>
+     * <p>Create Time: 2026/10/18 10:12</p>
+     */
+    public CompletableFuture<String> postJsonAsync(String url, String jsonStr, Map<String, String> headers) {
+        if (Objects.isNull(jsonStr) || jsonStr.isEmpty()) throw new NullPointerException("请求体json不能为空！");
+        return this.sendAsync(buildPostBody(url, headers, APPLICATION_JSON_UTF8, jsonStr));
+    }
+
+    /**
+     * <p>Title: 批量发送json格式的文本</p>
+     * <p>Description: 每个json一个POST请求，并发和速率限制见{@link #sendBatch(Iterator, int, double, Consumer)}</p>
+     * <p>Create Time: 2026/10/18 15:10</p>
+     */
+    public int postJsonBatch(String url, Iterable<String> jsonStrs, Map<String, String> headers, int concurrency,
+                             double permitsPerSecond, Consumer<HttpBatchResult> consumer) {
+        Iterator<String> jsons = jsonStrs.iterator();
+        return this.sendBatch(new Iterator<Request>() {
+            @Override
+            public boolean hasNext() {
+                return jsons.hasNext();
+            }
+
+            @Override
+            public Request next() {
+                return buildPostBody(url, headers, APPLICATION_JSON_UTF8, jsons.next());
+            }
+        }, concurrency, permitsPerSecond, consumer);
+    }
+
+    private Request buildPostBody(String url, Map<String, String> headers, String mediaTypeStr, String requestBodyStr) {
         Request.Builder requestBuilder = new Request.Builder().url(url);
         // 请求头设置
         if (Objects.nonNull(headers) && !headers.isEmpty()) {
-            LOGGER.info("请求头（值为null的会被过滤）: <{}>", headers.toString());
             this.removeEmptyValue(headers);
             requestBuilder.headers(Headers.of(headers));
         }
-        LOGGER.info("MIME-type: <{}>, 请求体: <{}>", mediaTypeStr, requestBodyStr);
-        return this.send(requestBuilder.post(RequestBody.create(MediaType.get(mediaTypeStr), requestBodyStr)).build());
+        MediaType mediaType = MediaType.get(mediaTypeStr);
+        if (this.compressMinBytes > 0) {
+            byte[] raw = requestBodyStr.getBytes(StandardCharsets.UTF_8);
+            if (raw.length >= this.compressMinBytes) {
+                requestBuilder.header("Content-Encoding", "gzip");
+                return requestBuilder.post(RequestBody.create(mediaType, this.compressionStats.gzip(raw))).build();
+            }
+        }
+        return requestBuilder.post(HttpUploadBody.text(mediaType, requestBodyStr)).build();
+    }
+
+    /**
+     * <p>Title: 设置日志策略</p>
+     * <p>Description: 默认记录完整的请求和响应，高并发场景建议使用{@link HttpLogPolicy#metadata()}或采样</p>
+     * <p>Create Time: 2026/10/18 13:20</p>
+     */
+    public void setLogPolicy(HttpLogPolicy logPolicy) {
+        this.logPolicy = Objects.requireNonNull(logPolicy, "logPolicy不能为null！");
+    }
+
+    /**
+     * <p>Title: 获取doGet的响应缓存</p>
+     * <p>Description: 用于查看命中次数等统计，没有配置缓存时为null</p>
+     * <p>Create Time: 2026/10/18 14:40</p>
+     */
+    public HttpResponseCache getResponseCache() {
+        return this.responseCache;
+    }
+
+    /**
+     * <p>Title: 获取压缩统计</p>
+     * <p>Description: 没有配置压缩时为null</p>
+     * <p>Create Time: 2026/10/18 16:10</p>
+     */
+    public HttpCompressionStats getCompressionStats() {
+        return this.compressionStats;
+    }
+
+    // 按日志策略记录请求，返回本次请求是否记录日志
+    private boolean logRequest(Request request) {
+        HttpLogPolicy policy = this.logPolicy;
+        if (!LOGGER.isInfoEnabled() || !policy.shouldLog()) {
+            return false;
+        }
+        if (policy.logsBody()) {
+            LOGGER.info("请求类型: <{}>, 请求URL: <{}>, 请求头: <{}>, 请求体: <{}>",
+                    request.method(), request.url(), request.headers().toMultimap(), policy.body(request));
+        } else {
+            LOGGER.info("请求类型: <{}>, 请求URL: <{}>", request.method(), request.url());
+        }
+        return true;
+    }
+
+    // 按日志策略记录响应，body为null时不记录响应体
+    private void logResponse(boolean logged, Response response, String body, long startNanos) {
+        if (!logged) {
+            return;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (body != null && this.logPolicy.logsBody()) {
+            LOGGER.info("HTTP请求成功！response is: <{}>, 耗时: <{}>ms, response body is <{}>", response, elapsedMillis, this.logPolicy.body(body));
+        } else {
+            LOGGER.info("HTTP请求成功！response is: <{}>, 耗时: <{}>ms", response, elapsedMillis);
+        }
     }
 
     /**
@@ -224,16 +487,798 @@ public class HttpUtil {
      * <p>Create Time: 2020/8/11 17:56</p>
      */
     public String send(Request request) {
-        try (Response response = this.okHttpClient.newCall(request).execute()) {
+        long start = System.nanoTime();
+        boolean logged = this.logRequest(request);
+        try (Response response = this.execute(request)) {
             if (!response.isSuccessful()) {
                 throw new RuntimeException(response.toString());
             }
             String result = response.body().string();
-            LOGGER.info("HTTP请求成功！response is: <{}>, response body is <{}>", response.toString(), result);
+            this.logResponse(logged, response, result, start);
+            return result;
+        } catch (Exception e) {
+            LOGGER.error("HTTP请求失败！<{}>", e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 经过响应缓存发送GET请求：有效期内直接返回缓存内容，过期后向服务端验证，相同请求同时只发送一个
+     */
+    private String sendCached(Request request) {
+        String key = HttpResponseCache.key(request);
+        HttpResponseCache.CachedResponse entry = this.responseCache.get(key);
+        if (entry != null && entry.isFresh()) {
+            this.responseCache.recordHit();
+            return entry.body;
+        }
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = this.responseCache.inFlight().putIfAbsent(key, mine);
+        if (running != null) {
+            this.responseCache.recordCoalesced();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            String result = this.fetchCached(request, key, entry);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.responseCache.inFlight().remove(key, mine);
+        }
+    }
+
+    private String fetchCached(Request request, String key, HttpResponseCache.CachedResponse entry) {
+        boolean revalidate = entry != null && entry.isRevalidatable();
+        Request actual = revalidate ? entry.conditional(request) : request;
+        long start = System.nanoTime();
+        boolean logged = this.logRequest(actual);
+        try (Response response = this.execute(actual)) {
+            if (revalidate && response.code() == 304) {
+                this.responseCache.refresh(key, entry, response);
+                this.responseCache.recordRevalidated();
+                this.logResponse(logged, response, null, start);
+                return entry.body;
+            }
+            if (!response.isSuccessful()) {
+                throw new RuntimeException(response.toString());
+            }
+            String result = response.body().string();
+            this.responseCache.put(key, response, result);
+            this.responseCache.recordMiss();
+            this.logResponse(logged, response, result, start);
+            return result;
+        } catch (Exception e) {
+            LOGGER.error("HTTP请求失败！<{}>", e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * <p>Title: 以流的方式处理响应体</p>
+     * <p>Description: 响应体不会整体读入内存，由handler直接读取输入流；响应体超过maxBytes（小于等于0时不限制）时抛出异常，
+     * handler返回后响应自动关闭</p>
+     * <p>Create Time: 2026/10/18 11:30</p>
+     */
+    public <T> T send(Request request, long maxBytes, ResponseBodyHandler<T> handler) {
+        long start = System.nanoTime();
+        boolean logged = this.logRequest(request);
+        try (Response response = this.execute(request)) {
+            ResponseBody body = this.checkStreamingResponse(response, maxBytes);
+            T result = handler.handle(new LimitedInputStream(body.byteStream(), maxBytes), response);
+            this.logResponse(logged, response, null, start);
             return result;
         } catch (Exception e) {
             LOGGER.error("HTTP请求失败！<{}>", e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * <p>Title: 下载文件</p>
+     * <p>Create Time: 2026/10/18 11:30</p>
+     */
+    public long download(String url, Map<String, String> headers, Path target, long maxBytes) {
+        Request.Builder requestBuilder = new Request.Builder().url(url);
+        if (Objects.nonNull(headers) && !headers.isEmpty()) {
+            this.removeEmptyValue(headers);
+            requestBuilder.headers(Headers.of(headers));
+        }
+        return download(requestBuilder.get().build(), target, maxBytes);
+    }
+
+    /**
+     * <p>Title: 下载文件</p>
+     * <p>Description: 响应体从okio的source直接写入文件通道，不经过完整的内存缓冲；响应体超过maxBytes（小于等于0时不限制）时
+     * 中止下载并删除已写入的文件</p>
+     * <p>Create Time: 2026/10/18 11:30</p>
+     *
+     * @return 写入的字节数
+     */
+    public long download(Request request, Path target, long maxBytes) {
+        long start = System.nanoTime();
+        boolean logged = this.logRequest(request);
+        try (Response response = this.execute(request)) {
+            BufferedSource source = this.checkStreamingResponse(response, maxBytes).source();
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (!source.exhausted()) {
+                    written += channel.transferFrom(source, written, TRANSFER_CHUNK_BYTES);
+                    if (maxBytes > 0 && written > maxBytes) {
+                        throw new IOException("响应体超过大小限制: " + maxBytes + "字节");
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+            this.logResponse(logged, response, null, start);
+            return written;
+        } catch (Exception e) {
+            LOGGER.error("HTTP请求失败！<{}>", e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    // 检查响应状态，并在读取前根据Content-Length检查大小限制
+    private ResponseBody checkStreamingResponse(Response response, long maxBytes) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new RuntimeException(response.toString());
+        }
+        ResponseBody body = response.body();
+        if (maxBytes > 0 && body.contentLength() > maxBytes) {
+            throw new IOException("响应体大小<" + body.contentLength() + ">超过限制: " + maxBytes + "字节");
+        }
+        return body;
+    }
+
+    /**
+     * <p>Title: 异步发送请求</p>
+     * <p>Description: 基于okhttp的enqueue，不占用调用线程，超时时间使用客户端的默认配置</p>
+     * <p>Create Time: 2026/10/18 10:12</p>
+     */
+    public CompletableFuture<String> sendAsync(Request request) {
+        return sendAsync(request, 0L, null);
+    }
+
+    /**
+     * <p>Title: 异步发送请求</p>
+     * <p>Description: timeoutMillis为整个调用（连接、发送、读取响应体）的超时时间，小于等于0时不限制；
+     * 取消返回的future会同时取消HTTP调用；callbackExecutor不为null时future在该执行器中完成，
+     * 后续回调也在其中执行（例如在JDK 21上传入虚拟线程执行器），为null时在okhttp的分发线程中完成</p>
+     * <p>Create Time: 2026/10/18 10:12</p>
+     */
+    public CompletableFuture<String> sendAsync(Request request, long timeoutMillis, Executor callbackExecutor) {
+        long start = System.nanoTime();
+        boolean logged = this.logRequest(request);
+        CompletableFuture<Response> responseFuture = this.isHedged(request)
+                ? this.executeHedged(request, timeoutMillis) : this.executeAsync(request, timeoutMillis);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                responseFuture.cancel(true);
+            }
+        });
+        responseFuture.whenComplete((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (!future.isCancelled() && !responseFuture.isCancelled()) {
+                    LOGGER.error("HTTP请求失败！<{}>", cause.getMessage(), cause);
+                }
+                complete(future, null, cause, callbackExecutor);
+                return;
+            }
+            try (Response res = response) {
+                if (!res.isSuccessful()) {
+                    throw new RuntimeException(res.toString());
+                }
+                String result = res.body().string();
+                logResponse(logged, res, result, start);
+                complete(future, result, null, callbackExecutor);
+            } catch (Exception e) {
+                if (!future.isCancelled()) {
+                    LOGGER.error("HTTP请求失败！<{}>", e.getMessage(), e);
+                }
+                complete(future, null, e, callbackExecutor);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * <p>Title: 批量发送请求</p>
+     * <p>Description: 见{@link #sendBatch(Iterator, int, double, Consumer)}</p>
+     * <p>Create Time: 2026/10/18 15:10</p>
+     */
+    public int sendBatch(Iterable<Request> requests, int concurrency, double permitsPerSecond, Consumer<HttpBatchResult> consumer) {
+        return this.sendBatch(requests.iterator(), concurrency, permitsPerSecond, consumer);
+    }
+
+    /**
+     * <p>Title: 批量发送请求</p>
+     * <p>Description: 见{@link #sendBatch(Iterator, int, double, Consumer)}，流在发送完成后关闭</p>
+     * <p>Create Time: 2026/10/18 15:10</p>
+     */
+    public int sendBatch(Stream<Request> requests, int concurrency, double permitsPerSecond, Consumer<HttpBatchResult> consumer) {
+        try (Stream<Request> stream = requests) {
+            return this.sendBatch(stream.iterator(), concurrency, permitsPerSecond, consumer);
+        }
+    }
+
+    /**
+     * <p>Title: 批量发送请求</p>
+     * <p>Description: 最多同时发送concurrency个请求，每秒最多发出permitsPerSecond个（小于等于0时不限速）；
+     * 只有在途请求数低于并发数时才从requests中取下一个，内存占用与请求总数无关；
+     * 同一主机的实际并发还受分发器限制（默认每个主机5个），需要更高并发时用{@link Builder#maxRequests}调整。
+     * 每个结果按完成顺序在调用线程中交给consumer，单个请求失败不影响其他请求，所有请求完成后返回。
+     * consumer抛出异常或线程被中断时取消在途请求并抛出异常</p>
+     * <p>Create Time: 2026/10/18 15:10</p>
+     *
+     * @return 失败的请求数
+     */
+    public int sendBatch(Iterator<Request> requests, int concurrency, double permitsPerSecond, Consumer<HttpBatchResult> consumer) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency必须大于0！");
+        }
+        long intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        BlockingQueue<HttpBatchResult> completed = new LinkedBlockingQueue<>();
+        Map<Long, CompletableFuture<String>> running = new HashMap<>();
+        long index = 0;
+        long nextPermitNanos = System.nanoTime();
+        int failed = 0;
+        try {
+            while (requests.hasNext() || !running.isEmpty()) {
+                HttpBatchResult result = null;
+                if (running.size() < concurrency && requests.hasNext()) {
+                    long waitNanos = nextPermitNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        // 等待速率限制时继续处理已完成的结果
+                        result = completed.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    } else {
+                        nextPermitNanos = Math.max(nextPermitNanos, System.nanoTime()) + intervalNanos;
+                        long itemIndex = index++;
+                        Request request = requests.next();
+                        long start = System.nanoTime();
+                        CompletableFuture<String> future = this.sendAsync(request);
+                        running.put(itemIndex, future);
+                        future.whenComplete((body, e) -> completed.add(new HttpBatchResult(itemIndex, request, body,
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e)));
+                        result = completed.poll();
+                    }
+                } else {
+                    result = completed.take();
+                }
+                if (result != null) {
+                    running.remove(result.getIndex());
+                    if (!result.isSuccess()) {
+                        failed++;
+                    }
+                    consumer.accept(result);
+                }
+            }
+            return failed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("批量请求被中断", e);
+        } finally {
+            running.values().forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * 同步执行请求，按配置进行熔断检查、失败重试和对冲请求，返回的响应由调用方关闭。
+     */
+    private Response execute(Request request) throws IOException {
+        if (this.isHedged(request)) {
+            return this.executeHedgedSync(request);
+        }
+        return this.executeWithRetry(request);
+    }
+
+    /**
+     * 同步执行请求并按配置重试
+     */
+    private Response executeWithRetry(Request request) throws IOException {
+        String host = request.url().host();
+        boolean retryable = this.isRetryable(request);
+        for (int attempt = 1; ; attempt++) {
+            this.acquireCircuit(host);
+            Call call = this.okHttpClient.newCall(request);
+            Response response;
+            try {
+                response = call.execute();
+            } catch (IOException e) {
+                if (call.isCanceled()) {
+                    throw e;
+                }
+                this.recordFailure(host);
+                long delay = retryable ? this.retryPolicy.delayMillis(attempt, null) : -1;
+                if (delay < 0) {
+                    throw e;
+                }
+                LOGGER.warn("HTTP请求失败，<{}>ms后第<{}>次重试: <{}>", delay, attempt, e.getMessage());
+                sleep(delay);
+                continue;
+            }
+            this.recordResult(host, response.code());
+            long delay = retryable && this.retryPolicy.isRetryableStatus(response.code())
+                    ? this.retryPolicy.delayMillis(attempt, response.header("Retry-After")) : -1;
+            if (delay < 0) {
+                return response;
+            }
+            LOGGER.warn("HTTP响应<{}>，<{}>ms后第<{}>次重试", response.code(), delay, attempt);
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    /**
+     * 同步的对冲请求：各次尝试经{@link #executeHedged(Request, long)}入队到okhttp的分发器，与异步请求一样受
+     * maxRequests、maxRequestsPerHost限制，调用线程等待结果。被中断时取消所有尝试，之后完成的响应会被关闭。
+     */
+    private Response executeHedgedSync(Request request) throws IOException {
+        CompletableFuture<Response> future = this.executeHedged(request, 0);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            if (!future.cancel(true)) {
+                future.thenAccept(Response::close);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待HTTP响应时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 异步执行请求，重试时在调度线程中等待后重新入队；timeoutMillis作用于每一次尝试。
+     * 取消返回的future会取消正在进行的调用。
+     */
+    private CompletableFuture<Response> executeAsync(Request request, long timeoutMillis) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        AtomicReference<Call> current = new AtomicReference<>();
+        future.whenComplete((response, e) -> {
+            Call call = current.get();
+            if (future.isCancelled() && call != null) {
+                call.cancel();
+            }
+        });
+        this.enqueueAttempt(request, timeoutMillis, 1, future, current);
+        return future;
+    }
+
+    private void enqueueAttempt(Request request, long timeoutMillis, int attempt, CompletableFuture<Response> future, AtomicReference<Call> current) {
+        if (future.isDone()) {
+            return;
+        }
+        String host = request.url().host();
+        try {
+            this.acquireCircuit(host);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        Call call = this.okHttpClient.newCall(request);
+        if (timeoutMillis > 0) {
+            call.timeout().timeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        current.set(call);
+        if (future.isCancelled()) {
+            call.cancel();
+            return;
+        }
+        boolean retryable = this.isRetryable(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (call.isCanceled()) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                recordFailure(host);
+                long delay = retryable ? retryPolicy.delayMillis(attempt, null) : -1;
+                if (delay < 0) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                LOGGER.warn("HTTP请求失败，<{}>ms后第<{}>次重试: <{}>", delay, attempt, e.getMessage());
+                SCHEDULER.schedule(() -> enqueueAttempt(request, timeoutMillis, attempt + 1, future, current), delay, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                recordResult(host, response.code());
+                long delay = retryable && retryPolicy.isRetryableStatus(response.code())
+                        ? retryPolicy.delayMillis(attempt, response.header("Retry-After")) : -1;
+                if (delay >= 0) {
+                    LOGGER.warn("HTTP响应<{}>，<{}>ms后第<{}>次重试", response.code(), delay, attempt);
+                    response.close();
+                    SCHEDULER.schedule(() -> enqueueAttempt(request, timeoutMillis, attempt + 1, future, current), delay, TimeUnit.MILLISECONDS);
+                } else if (!future.complete(response)) {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 对冲请求：第一个请求在hedgeDelayMillis内没有完成时再发一个相同的请求，采用先得到的成功或不可重试的响应并取消另一个。
+     * 5xx等可重试的失败响应在还有其他尝试未完成时被关闭并继续等待，所有尝试都结束时才采用最后的失败响应或异常。
+     * 取消返回的future会取消所有尝试，之后完成的响应会被关闭。
+     */
+    private CompletableFuture<Response> executeHedged(Request request, long timeoutMillis) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        List<CompletableFuture<Response>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        BiConsumer<Response, Throwable> onDone = (response, e) -> {
+            boolean last = pending.decrementAndGet() == 0;
+            if (response == null) {
+                if (last) {
+                    result.completeExceptionally(e);
+                }
+            } else if (!(last || this.isFinalResponse(response)) || !result.complete(response)) {
+                response.close();
+            }
+        };
+        result.whenComplete((response, e) -> attempts.forEach(attempt -> attempt.cancel(true)));
+        CompletableFuture<Response> primary = this.executeAsync(request, timeoutMillis);
+        attempts.add(primary);
+        primary.whenComplete(onDone);
+        SCHEDULER.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            pending.incrementAndGet();
+            CompletableFuture<Response> hedge = this.executeAsync(request, timeoutMillis);
+            attempts.add(hedge);
+            hedge.whenComplete(onDone);
+            if (result.isDone()) {
+                hedge.cancel(true);
+            }
+        }, this.hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    // 成功或不可重试的响应可以直接采用，5xx和重试策略中可重试的状态码不行
+    private boolean isFinalResponse(Response response) {
+        return response.isSuccessful()
+                || (response.code() < 500 && !this.retryPolicy.isRetryableStatus(response.code()));
+    }
+
+    private boolean isHedged(Request request) {
+        return this.hedgeDelayMillis > 0 && "GET".equals(request.method());
+    }
+
+    // 幂等且请求体可以重复发送的请求才重试
+    private boolean isRetryable(Request request) {
+        return this.retryPolicy.getMaxAttempts() > 1 && this.retryPolicy.isRetryableMethod(request.method())
+                && (request.body() == null || !request.body().isOneShot());
+    }
+
+    private void acquireCircuit(String host) {
+        if (this.circuitBreaker != null) {
+            this.circuitBreaker.acquire(host);
+        }
+    }
+
+    private void recordFailure(String host) {
+        if (this.circuitBreaker != null) {
+            this.circuitBreaker.onFailure(host);
+        }
+    }
+
+    private void recordResult(String host, int code) {
+        if (this.circuitBreaker != null) {
+            if (code >= 500) {
+                this.circuitBreaker.onFailure(host);
+            } else {
+                this.circuitBreaker.onSuccess(host);
+            }
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("重试等待时被中断");
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, T result, Throwable e, Executor executor) {
+        Runnable action = () -> {
+            if (e == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(e);
+            }
+        };
+        if (executor == null) {
+            action.run();
+        } else {
+            executor.execute(action);
+        }
+    }
+
+    /**
+     * <p>Title: 响应体处理</p>
+     * <p>Create Time: 2026/10/18 11:30</p>
+     */
+    @FunctionalInterface
+    public interface ResponseBodyHandler<T> {
+        T handle(InputStream body, Response response) throws IOException;
+    }
+
+    /**
+     * 超过限制字节数时抛出异常的输入流
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long count;
+
+        private LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                this.count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                this.count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            count += n;
+            if (maxBytes > 0 && count > maxBytes) {
+                throw new IOException("响应体超过大小限制: " + maxBytes + "字节");
+            }
+        }
+    }
+
+    /**
+     * <p>Title: 命名实例构建器</p>
+     * <p>Create Time: 2026/10/18 11:05</p>
+     */
+    public static final class Builder {
+        private final String name;
+        private long connectTimeoutMillis = -1;
+        private long readTimeoutMillis = -1;
+        private long writeTimeoutMillis = -1;
+        private long callTimeoutMillis = -1;
+        private int maxIdleConnections = -1;
+        private long keepAliveMillis = -1;
+        private int maxRequests = -1;
+        private int maxRequestsPerHost = -1;
+        private Boolean http2;
+        private boolean h2PriorKnowledge;
+        private HttpLogPolicy logPolicy = HttpLogPolicy.full();
+        private HttpRetryPolicy retryPolicy = HttpRetryPolicy.none();
+        private int circuitFailureThreshold;
+        private long circuitOpenMillis;
+        private long hedgeDelayMillis;
+        private HttpResponseCache responseCache;
+        private File diskCacheDirectory;
+        private long diskCacheMaxBytes;
+        private int compressMinBytes;
+        private HttpCompressionStats compressionStats;
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name, "实例名称不能为null！");
+        }
+
+        /**
+         * 连接超时时间
+         */
+        public Builder connectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * 读超时时间
+         */
+        public Builder readTimeout(long timeout, TimeUnit unit) {
+            this.readTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * 写超时时间
+         */
+        public Builder writeTimeout(long timeout, TimeUnit unit) {
+            this.writeTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * 整个调用的超时时间，0为不限制
+         */
+        public Builder callTimeout(long timeout, TimeUnit unit) {
+            this.callTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * 连接池最大空闲连接数和空闲连接保活时间，okhttp默认为5个、5分钟
+         */
+        public Builder connectionPool(int maxIdleConnections, long keepAlive, TimeUnit unit) {
+            if (maxIdleConnections < 0 || keepAlive <= 0) {
+                throw new IllegalArgumentException("maxIdleConnections不能小于0，keepAlive必须大于0！");
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveMillis = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        /**
+         * 异步请求的最大并发数和单个主机的最大并发数，okhttp默认为64、5
+         */
+        public Builder maxRequests(int maxRequests, int maxRequestsPerHost) {
+            if (maxRequests <= 0 || maxRequestsPerHost <= 0) {
+                throw new IllegalArgumentException("maxRequests和maxRequestsPerHost必须大于0！");
+            }
+            this.maxRequests = maxRequests;
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * 是否使用HTTP/2，默认在HTTPS上协商使用；为false时只使用HTTP/1.1
+         */
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /**
+         * 明文连接直接使用HTTP/2（h2c），要求服务端支持，仅适用于http地址
+         */
+        public Builder h2PriorKnowledge() {
+            this.h2PriorKnowledge = true;
+            return this;
+        }
+
+        /**
+         * 日志策略，默认记录完整的请求和响应
+         */
+        public Builder logPolicy(HttpLogPolicy logPolicy) {
+            this.logPolicy = Objects.requireNonNull(logPolicy, "logPolicy不能为null！");
+            return this;
+        }
+
+        /**
+         * 重试策略，默认不重试
+         */
+        public Builder retryPolicy(HttpRetryPolicy retryPolicy) {
+            this.retryPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy不能为null！");
+            return this;
+        }
+
+        /**
+         * 按主机熔断：连续失败failureThreshold次后，openDuration内的请求直接失败，默认不熔断
+         */
+        public Builder circuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+            if (failureThreshold <= 0 || openDuration <= 0) {
+                throw new IllegalArgumentException("failureThreshold和openDuration必须大于0！");
+            }
+            this.circuitFailureThreshold = failureThreshold;
+            this.circuitOpenMillis = unit.toMillis(openDuration);
+            return this;
+        }
+
+        /**
+         * GET请求在delay内没有完成时发出一个对冲请求，采用先得到的成功或不可重试的响应，用于降低长尾延迟，默认不启用。
+         * 同步请求的各次尝试同样经分发器发出，受maxRequests、maxRequestsPerHost限制
+         */
+        public Builder hedgeAfter(long delay, TimeUnit unit) {
+            if (delay <= 0) {
+                throw new IllegalArgumentException("delay必须大于0！");
+            }
+            this.hedgeDelayMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        /**
+         * doGet的内存响应缓存，多个实例可以共用一个缓存，默认不缓存
+         */
+        public Builder responseCache(HttpResponseCache responseCache) {
+            this.responseCache = Objects.requireNonNull(responseCache, "responseCache不能为null！");
+            return this;
+        }
+
+        /**
+         * 按HTTP缓存头在磁盘上缓存响应，对所有请求生效，进程重启后仍然可用
+         */
+        public Builder diskCache(File directory, long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("maxBytes必须大于0！");
+            }
+            this.diskCacheDirectory = Objects.requireNonNull(directory, "directory不能为null！");
+            this.diskCacheMaxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * 请求体压缩：postJson、postString等文本请求体达到minBytes字节时以gzip压缩发送，并设置Content-Encoding: gzip（需要服务端支持）；
+         * 同时统一解压gzip响应并统计压缩率，见{@link HttpUtil#getCompressionStats()}
+         */
+        public Builder compressRequests(int minBytes) {
+            if (minBytes <= 0) {
+                throw new IllegalArgumentException("minBytes必须大于0！");
+            }
+            this.compressMinBytes = minBytes;
+            return this;
+        }
+
+        /**
+         * 创建实例并以名称注册，同名实例会被替换
+         */
+        public HttpUtil build() {
+            OkHttpClient.Builder builder = getInst().okHttpClient.newBuilder();
+            if (connectTimeoutMillis >= 0) {
+                builder.connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            if (readTimeoutMillis >= 0) {
+                builder.readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            if (writeTimeoutMillis >= 0) {
+                builder.writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            if (callTimeoutMillis >= 0) {
+                builder.callTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            if (maxIdleConnections >= 0) {
+                builder.connectionPool(SHARED_POOLS.computeIfAbsent(maxIdleConnections + ":" + keepAliveMillis,
+                        key -> new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS)));
+            }
+            if (maxRequests > 0) {
+                builder.dispatcher(SHARED_DISPATCHERS.computeIfAbsent(maxRequests + ":" + maxRequestsPerHost, key -> {
+                    Dispatcher dispatcher = new Dispatcher();
+                    dispatcher.setMaxRequests(maxRequests);
+                    dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+                    return dispatcher;
+                }));
+            }
+            if (h2PriorKnowledge) {
+                builder.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+            } else if (http2 != null) {
+                builder.protocols(http2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1));
+            }
+            if (diskCacheDirectory != null) {
+                builder.cache(SHARED_DISK_CACHES.computeIfAbsent(diskCacheDirectory.getAbsolutePath(),
+                        key -> new Cache(diskCacheDirectory, diskCacheMaxBytes)));
+            }
+            if (compressMinBytes > 0) {
+                compressionStats = new HttpCompressionStats();
+                builder.addNetworkInterceptor(compressionStats.decodingInterceptor());
+            }
+            HttpUtil httpUtil = new HttpUtil(builder.build(), this);
+            NAMED_INSTS.put(name, httpUtil);
+            return httpUtil;
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package com.robot.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于共享目录的节点号租约协调器，目录可以是多台机器挂载的同一个网络文件系统目录。
+ * <p>
+ * 每个节点号对应目录下的一个租约文件lease-节点号，内容为 持有者、到期时间，以制表符分隔，释放后持有者为-，到期时间为释放时间。
+ * 所有读写都在目录下.lock文件的排他文件锁内进行，租约文件先写临时文件再替换。
+ * 到期时间使用各机器的系统时间，各机器的时钟偏差应远小于租期。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class SnowflakeFileLeaseCoordinator implements SnowflakeLeaseCoordinator {
+
+    private static final String LOCK_FILE_NAME = ".lock";
+    private static final String LEASE_FILE_PREFIX = "lease-";
+    private static final String RELEASED = "-";
+    /**
+     * 同一进程内对同一个锁文件重复加锁会抛出异常，进程内先按目录同步
+     */
+    private static final Map<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    public SnowflakeFileLeaseCoordinator(File directory) {
+        this.directory = directory.toPath().toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new RuntimeException("创建租约目录异常: " + directory, e);
+        }
+    }
+
+    @Override
+    public SnowflakeLease acquire(String owner, long maxNodeId, long leaseMillis) {
+        return locked(() -> {
+            long now = System.currentTimeMillis();
+            for (long nodeId = 0; nodeId <= maxNodeId; nodeId++) {
+                String[] lease = read(nodeId);
+                if (lease == null || Long.parseLong(lease[1]) <= now) {
+                    write(nodeId, owner, now + leaseMillis);
+                    return new SnowflakeLease(nodeId, lease == null ? 0 : Long.parseLong(lease[1]));
+                }
+            }
+            throw new IllegalStateException(String.format("all %d node ids are leased in %s", maxNodeId + 1, directory));
+        });
+    }
+
+    @Override
+    public boolean renew(long nodeId, String owner, long leaseMillis) {
+        return locked(() -> {
+            String[] lease = read(nodeId);
+            // 已过期但还没有被他人租用时仍然可以续租
+            if (lease == null || !owner.equals(lease[0])) {
+                return false;
+            }
+            write(nodeId, owner, System.currentTimeMillis() + leaseMillis);
+            return true;
+        });
+    }
+
+    @Override
+    public void release(long nodeId, String owner) {
+        locked(() -> {
+            String[] lease = read(nodeId);
+            if (lease != null && owner.equals(lease[0])) {
+                // 保留释放时间，下一个持有者据此避开已生成ID的时间截
+                write(nodeId, RELEASED, Math.min(Long.parseLong(lease[1]), System.currentTimeMillis()));
+            }
+            return null;
+        });
+    }
+
+    private <T> T locked(LeaseAction<T> action) {
+        synchronized (MONITORS.computeIfAbsent(directory, key -> new Object())) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    return action.run();
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("读写租约文件异常: " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * @return {持有者, 到期时间}，没有租约文件或内容损坏时为null
+     */
+    private String[] read(long nodeId) throws IOException {
+        Path file = leaseFile(nodeId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String[] lease = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim().split("\t");
+        if (lease.length != 2) {
+            return null;
+        }
+        try {
+            Long.parseLong(lease[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return lease;
+    }
+
+    private void write(long nodeId, String owner, long expiresAt) throws IOException {
+        Path file = leaseFile(nodeId);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tempFile, (owner + "\t" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path leaseFile(long nodeId) {
+        return directory.resolve(LEASE_FILE_PREFIX + nodeId);
+    }
+
+    @FunctionalInterface
+    private interface LeaseAction<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package com.robot.utils;
+
+/**
+ * 从雪花算法ID中解析出的各部分，见{@link SnowflakeLayout#decode(long)}。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class SnowflakeIdInfo {
+
+    /**
+     * ID
+     */
+    private final long id;
+    /**
+     * 生成时的时间截(毫秒)
+     */
+    private final long timestamp;
+    /**
+     * 数据中心ID
+     */
+    private final long datacenterId;
+    /**
+     * 工作机器ID
+     */
+    private final long workerId;
+    /**
+     * 毫秒内序列
+     */
+    private final long sequence;
+
+    SnowflakeIdInfo(long id, long timestamp, long datacenterId, long workerId, long sequence) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.datacenterId = datacenterId;
+        this.workerId = workerId;
+        this.sequence = sequence;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDatacenterId() {
+        return datacenterId;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeIdInfo{id=%d, timestamp=%d, datacenterId=%d, workerId=%d, sequence=%d}",
+                id, timestamp, datacenterId, workerId, sequence);
+    }
+}
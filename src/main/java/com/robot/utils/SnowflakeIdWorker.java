@@ -1,128 +1,330 @@
 package com.robot.utils;
 
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
 /**
  * 雪花算法。
+ * <p>
+ * 上次的时间戳和毫秒内序列保存在一个AtomicLong中，通过CAS无锁生成ID；毫秒内序列用完时借用下一毫秒，
+ * 时钟小幅回退时沿用上次的时间戳继续生成，借用和回退的总量不超过maxBorrowMillis。
  *
  * @Author 张宝旭
  * @Date 2020/12/16
  */
 public class SnowflakeIdWorker {
     /**
-     * 开始时间截 (2015-01-01)
+     * ID的位布局
+     */
+    private final SnowflakeLayout layout;
+    /**
+     * 开始时间截，默认为2015-01-01
      */
-    private final long twepoch = 1420041600000L;
+    private final long twepoch;
     /**
-     * 机器id所占的位数
+     * 支持的最大机器id，默认为31
      */
-    private final long workerIdBits = 5L;
+    private final long maxWorkerId;
     /**
-     * 数据标识id所占的位数
+     * 支持的最大数据标识id，默认为31
      */
-    private final long datacenterIdBits = 5L;
+    private final long maxDatacenterId;
     /**
-     * 支持的最大机器id，结果是31 (这个移位算法可以很快的计算出几位二进制数所能表示的最大十进制数)
+     * 序列在id中占的位数，默认为12
      */
-    private final long maxWorkerId = -1L ^ (-1L << workerIdBits);
+    private final long sequenceBits;
     /**
-     * 支持的最大数据标识id，结果是31
+     * 机器ID向左移的位数，默认为12
      */
-    private final long maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+    private final long workerIdShift;
     /**
-     * 序列在id中占的位数
+     * 数据标识id向左移的位数，默认为17(12+5)
      */
-    private final long sequenceBits = 12L;
+    private final long datacenterIdShift;
     /**
-     * 机器ID向左移12位
+     * 时间截向左移的位数，默认为22(5+5+12)
      */
-    private final long workerIdShift = sequenceBits;
+    private final long timestampLeftShift;
     /**
-     * 数据标识id向左移17位(12+5)
+     * 生成序列的掩码，默认为4095 (0b111111111111=0xfff=4095)
      */
-    private final long datacenterIdShift = sequenceBits + workerIdBits;
+    private final long sequenceMask;
     /**
-     * 时间截向左移22位(5+5+12)
+     * PARK方式在最后一毫秒内每次挂起的纳秒数
      */
-    private final long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+    private static final long PARK_NANOS = 100_000L;
     /**
-     * 生成序列的掩码，这里为4095 (0b111111111111=0xfff=4095)
+     * 默认最多领先系统时钟的毫秒数
      */
-    private final long sequenceMask = -1L ^ (-1L << sequenceBits);
+    public static final long DEFAULT_MAX_BORROW_MILLIS = 5L;
     /**
      * 工作机器ID(0~31)
      */
-    private long workerId;
+    private final long workerId;
     /**
      * 数据中心ID(0~31)
      */
-    private long datacenterId;
+    private final long datacenterId;
+    /**
+     * 数据中心ID和工作机器ID移位后的值
+     */
+    private final long nodeBits;
+    /**
+     * 生成ID的时间戳最多领先系统时钟的毫秒数
+     */
+    private final long maxBorrowMillis;
+    /**
+     * 等待下一毫秒的方式
+     */
+    private volatile WaitStrategy waitStrategy = WaitStrategy.PARK;
+    /**
+     * 等待时钟的次数
+     */
+    private final LongAdder overflowCount = new LongAdder();
+    /**
+     * 等待时钟的总耗时(纳秒)
+     */
+    private final LongAdder overflowWaitNanos = new LongAdder();
     /**
-     * 毫秒内序列(0~4095)
+     * 上次生成ID的状态：(时间截 - 开始时间截) << sequenceBits | 毫秒内序列，初始值使第一次生成时进入新的毫秒
      */
-    private long sequence = 0L;
+    private final AtomicLong state;
     /**
-     * 上次生成ID的时间截
+     * 能编码的最后一个状态，即布局最大时间截那一毫秒的最后一个序列，超过后时间截会溢出
      */
-    private long lastTimestamp = -1L;
+    private final long maxState;
     /**
      * 构造函数
      * @param workerId     工作ID (0~31)
      * @param datacenterId 数据中心ID (0~31)
      */
     public SnowflakeIdWorker(long workerId, long datacenterId) {
+        this(workerId, datacenterId, DEFAULT_MAX_BORROW_MILLIS);
+    }
+    /**
+     * 构造函数
+     * @param workerId        工作ID (0~31)
+     * @param datacenterId    数据中心ID (0~31)
+     * @param maxBorrowMillis 最多借用的未来毫秒数，也是能容忍的时钟回退毫秒数
+     */
+    public SnowflakeIdWorker(long workerId, long datacenterId, long maxBorrowMillis) {
+        this(SnowflakeLayout.DEFAULT, workerId, datacenterId, maxBorrowMillis);
+    }
+    /**
+     * 构造函数
+     * @param layout          ID的位布局
+     * @param workerId        工作ID (0~layout.getMaxWorkerId())
+     * @param datacenterId    数据中心ID (0~layout.getMaxDatacenterId())
+     * @param maxBorrowMillis 最多借用的未来毫秒数，也是能容忍的时钟回退毫秒数
+     */
+    public SnowflakeIdWorker(SnowflakeLayout layout, long workerId, long datacenterId, long maxBorrowMillis) {
+        this.layout = Objects.requireNonNull(layout, "layout can't be null");
+        this.twepoch = layout.getEpoch();
+        this.maxWorkerId = layout.getMaxWorkerId();
+        this.maxDatacenterId = layout.getMaxDatacenterId();
+        this.sequenceBits = layout.getSequenceBits();
+        this.workerIdShift = layout.getWorkerIdShift();
+        this.datacenterIdShift = layout.getDatacenterIdShift();
+        this.timestampLeftShift = layout.getTimestampLeftShift();
+        this.sequenceMask = layout.getMaxSequence();
+        this.state = new AtomicLong(-1L << sequenceBits);
+        this.maxState = ((layout.getMaxTimestamp() - twepoch) << sequenceBits) | sequenceMask;
         if (workerId > maxWorkerId || workerId < 0) {
             throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
         }
         if (datacenterId > maxDatacenterId || datacenterId < 0) {
             throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
         }
+        if (maxBorrowMillis < 0) {
+            throw new IllegalArgumentException("maxBorrowMillis can't be less than 0");
+        }
         this.workerId = workerId;
         this.datacenterId = datacenterId;
+        this.nodeBits = (datacenterId << datacenterIdShift) | (workerId << workerIdShift);
+        this.maxBorrowMillis = maxBorrowMillis;
+    }
+    /**
+     * @return ID的位布局，用于解析ID
+     */
+    public SnowflakeLayout getLayout() {
+        return layout;
     }
     /**
-     * 获得下一个ID (该方法是线程安全的)
+     * 解析本生成器生成的ID
+     * @param id SnowflakeId
+     * @return ID中的时间截、数据中心ID、工作机器ID和序列
+     */
+    public SnowflakeIdInfo decode(long id) {
+        return layout.decode(id);
+    }
+    /**
+     * 获得下一个ID (该方法是线程安全的，不加锁)
      * @return SnowflakeId
      */
-    public synchronized long nextId() {
-        long timestamp = timeGen();
-        // 如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过这个时候应当抛出异常
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(
-                    String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >> sequenceBits;
+            long timestamp = timeGen() - twepoch;
+            long next;
+            // 进入新的毫秒，毫秒内序列从0开始
+            if (timestamp > lastTimestamp) {
+                next = timestamp << sequenceBits;
+            } else {
+                checkClockBackwards(lastTimestamp, timestamp);
+                // 同一毫秒或时钟小幅回退，序列加1，序列溢出时进位到时间戳，即借用下一毫秒
+                next = current + 1;
+                // 借用的毫秒数已达上限，阻塞到下一个毫秒再重试
+                if ((next >> sequenceBits) - timestamp > maxBorrowMillis) {
+                    tilNextMillis(timestamp + twepoch);
+                    continue;
+                }
+            }
+            checkTimestampOverflow(next);
+            if (state.compareAndSet(current, next)) {
+                return toId(next);
+            }
         }
-        // 如果是同一时间生成的，则进行毫秒内序列
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            // 毫秒内序列溢出
-            if (sequence == 0) {
-                //阻塞到下一个毫秒,获得新的时间戳
-                timestamp = tilNextMillis(lastTimestamp);
+    }
+    /**
+     * 一次获得n个ID，ID递增
+     * @param n ID个数
+     * @return SnowflakeId数组
+     */
+    public long[] nextIds(int n) {
+        long[] ids = new long[n];
+        nextIds(ids, 0, n);
+        return ids;
+    }
+    /**
+     * 一次获得length个ID填入ids中offset开始的位置，ID递增 (该方法是线程安全的，不加锁)。
+     * 一次CAS预留一段连续的序列，跨毫秒时借用后面的毫秒，超过借用上限时等到下一毫秒再继续预留
+     * @param ids    存放ID的数组
+     * @param offset 起始位置
+     * @param length ID个数
+     */
+    public void nextIds(long[] ids, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > ids.length) {
+            throw new IndexOutOfBoundsException(String.format("offset %d, length %d, array length %d", offset, length, ids.length));
+        }
+        int filled = 0;
+        while (filled < length) {
+            long current = state.get();
+            long lastTimestamp = current >> sequenceBits;
+            long timestamp = timeGen() - twepoch;
+            long first;
+            if (timestamp > lastTimestamp) {
+                first = timestamp << sequenceBits;
+            } else {
+                checkClockBackwards(lastTimestamp, timestamp);
+                first = current + 1;
+            }
+            // 最多预留到借用上限那一毫秒的最后一个序列
+            long available = ((timestamp + maxBorrowMillis + 1) << sequenceBits) - first;
+            if (available <= 0) {
+                tilNextMillis(timestamp + twepoch);
+                continue;
+            }
+            int count = (int) Math.min(length - filled, available);
+            checkTimestampOverflow(first + count - 1);
+            if (state.compareAndSet(current, first + count - 1)) {
+                for (int i = 0; i < count; i++) {
+                    ids[offset + filled + i] = toId(first + i);
+                }
+                filled += count;
             }
         }
-        // 时间戳改变，毫秒内序列重置
-        else {
-            sequence = 0L;
+    }
+    /**
+     * 线程本地缓冲的ID生成器：每个线程一次预留batchSize个ID，之后直接从本线程的缓冲中取，用完再预留。
+     * 同一线程内ID递增，不同线程之间不保证按生成先后排序，ID中的时间戳为预留时的时间
+     * @param batchSize 每次预留的ID个数
+     * @return ID生成器
+     */
+    public LongSupplier threadLocalBuffered(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be greater than 0");
         }
-        // 上次生成ID的时间截
-        lastTimestamp = timestamp;
-        // 移位并通过或运算拼到一起组成64位的ID
-//        long twepoch = System.currentTimeMillis();
-        return ((timestamp - twepoch) << timestampLeftShift) //
-                | (datacenterId << datacenterIdShift) //
-                | (workerId << workerIdShift) //
-                | sequence;
+        ThreadLocal<IdBuffer> buffers = ThreadLocal.withInitial(() -> new IdBuffer(batchSize));
+        return () -> {
+            IdBuffer buffer = buffers.get();
+            if (buffer.position == buffer.ids.length) {
+                nextIds(buffer.ids, 0, buffer.ids.length);
+                buffer.position = 0;
+            }
+            return buffer.ids[buffer.position++];
+        };
+    }
+    /**
+     * 时钟回退超过可以容忍的范围时抛出异常
+     */
+    private void checkClockBackwards(long lastTimestamp, long timestamp) {
+        if (lastTimestamp - timestamp > maxBorrowMillis) {
+            throw new RuntimeException(
+                    String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+        }
+    }
+    /**
+     * 要编码的时间截(包括借用的毫秒)超过布局的最大时间截时不再生成ID，避免时间截溢出到符号位或与早期ID重复
+     */
+    private void checkTimestampOverflow(long state) {
+        if (state > maxState) {
+            throw new IllegalStateException(String.format("Timestamp %d exceeds the max timestamp %d of the layout.  Refusing to generate id",
+                    (state >> sequenceBits) + twepoch, layout.getMaxTimestamp()));
+        }
+    }
+    /**
+     * 移位并通过或运算拼到一起组成64位的ID
+     */
+    private long toId(long state) {
+        return ((state >> sequenceBits) << timestampLeftShift) //
+                | nodeBits //
+                | (state & sequenceMask);
     }
     /**
-     * 阻塞到下一个毫秒，直到获得新的时间戳
+     * 阻塞到下一个毫秒，直到获得新的时间戳，等待方式见{@link WaitStrategy}
      * @param lastTimestamp 上次生成ID的时间截
      * @return 当前时间戳
      */
     protected long tilNextMillis(long lastTimestamp) {
+        long start = System.nanoTime();
+        WaitStrategy strategy = waitStrategy;
         long timestamp = timeGen();
         while (timestamp <= lastTimestamp) {
+            if (strategy == WaitStrategy.YIELD) {
+                Thread.yield();
+            } else if (strategy == WaitStrategy.PARK) {
+                // 相差多个毫秒时先整段挂起，最后一毫秒内分小段挂起，减少多等的时间
+                long remainingMillis = lastTimestamp + 1 - timestamp;
+                LockSupport.parkNanos(remainingMillis > 1 ? (remainingMillis - 1) * 1_000_000L : PARK_NANOS);
+            }
             timestamp = timeGen();
         }
+        overflowCount.increment();
+        overflowWaitNanos.add(System.nanoTime() - start);
         return timestamp;
     }
+    /**
+     * 设置序列用完、需要等待下一毫秒时的等待方式，默认为{@link WaitStrategy#PARK}
+     */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy can't be null");
+    }
+    /**
+     * @return 序列和可借用的毫秒都用完、不得不等待时钟的次数，持续增长说明生成器已饱和
+     */
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+    /**
+     * @return 等待时钟的总耗时(纳秒)
+     */
+    public long getOverflowWaitNanos() {
+        return overflowWaitNanos.sum();
+    }
     /**
      * 返回以毫秒为单位的当前时间
      * @return 当前时间(毫秒)
@@ -131,6 +333,34 @@ public class SnowflakeIdWorker {
         return System.currentTimeMillis();
     }
 
+    /**
+     * 序列用完时等待下一毫秒的方式
+     */
+    public enum WaitStrategy {
+        /**
+         * 循环读取时钟，延迟最低，但等待期间占满一个CPU核心
+         */
+        SPIN,
+        /**
+         * 每次读取时钟前让出CPU
+         */
+        YIELD,
+        /**
+         * 挂起线程直到下一毫秒，基本不占用CPU，唤醒有几十微秒的延迟
+         */
+        PARK
+    }
+
+    private static final class IdBuffer {
+        private final long[] ids;
+        private int position;
+
+        private IdBuffer(int batchSize) {
+            this.ids = new long[batchSize];
+            this.position = batchSize;
+        }
+    }
+
     public static void main(String[] args) throws InterruptedException {
         SnowflakeIdWorker idWorker = new SnowflakeIdWorker(0, 0);
         for (int i = 0; i < 10; i++) {
@@ -0,0 +1,139 @@
+package com.robot.utils;
+
+/**
+ * 雪花算法ID的位布局：最高位为0，之后依次为时间截、数据中心ID、工作机器ID、毫秒内序列。
+ * <p>
+ * 时间截占用除其余各部分以外的全部位数，位数越少可用的年限越短。可以减少数据中心ID、工作机器ID的位数换取更多的序列位，
+ * 提高单个节点每毫秒能生成的ID数。同一套系统中的所有节点必须使用相同的布局，ID才能互相比较和解析。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public final class SnowflakeLayout {
+
+    /**
+     * 默认布局：开始时间截2015-01-01，数据中心ID和工作机器ID各5位，序列12位
+     */
+    public static final SnowflakeLayout DEFAULT = new SnowflakeLayout(1420041600000L, 5, 5, 12);
+
+    private final long epoch;
+    private final int datacenterIdBits;
+    private final int workerIdBits;
+    private final int sequenceBits;
+    private final int timestampBits;
+
+    private SnowflakeLayout(long epoch, int datacenterIdBits, int workerIdBits, int sequenceBits) {
+        this.epoch = epoch;
+        this.datacenterIdBits = datacenterIdBits;
+        this.workerIdBits = workerIdBits;
+        this.sequenceBits = sequenceBits;
+        this.timestampBits = 63 - datacenterIdBits - workerIdBits - sequenceBits;
+    }
+
+    /**
+     * @param epoch            开始时间截(毫秒)，不能晚于当前时间
+     * @param datacenterIdBits 数据中心ID所占的位数
+     * @param workerIdBits     工作机器ID所占的位数
+     * @param sequenceBits     序列所占的位数，至少1位
+     */
+    public static SnowflakeLayout of(long epoch, int datacenterIdBits, int workerIdBits, int sequenceBits) {
+        if (datacenterIdBits < 0 || workerIdBits < 0 || sequenceBits < 1) {
+            throw new IllegalArgumentException("datacenterIdBits and workerIdBits can't be less than 0, sequenceBits can't be less than 1");
+        }
+        if (datacenterIdBits + workerIdBits + sequenceBits > 62) {
+            throw new IllegalArgumentException("datacenterIdBits + workerIdBits + sequenceBits can't be greater than 62");
+        }
+        long now = System.currentTimeMillis();
+        if (epoch < 0 || epoch > now) {
+            throw new IllegalArgumentException(String.format("epoch %d must be between 0 and current time %d", epoch, now));
+        }
+        SnowflakeLayout layout = new SnowflakeLayout(epoch, datacenterIdBits, workerIdBits, sequenceBits);
+        if (layout.getMaxTimestamp() <= now) {
+            throw new IllegalArgumentException(String.format("%d timestamp bits from epoch %d are already used up", layout.timestampBits, epoch));
+        }
+        return layout;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getDatacenterIdBits() {
+        return datacenterIdBits;
+    }
+
+    public int getWorkerIdBits() {
+        return workerIdBits;
+    }
+
+    public int getSequenceBits() {
+        return sequenceBits;
+    }
+
+    public int getTimestampBits() {
+        return timestampBits;
+    }
+
+    public long getMaxDatacenterId() {
+        return -1L ^ (-1L << datacenterIdBits);
+    }
+
+    public long getMaxWorkerId() {
+        return -1L ^ (-1L << workerIdBits);
+    }
+
+    public long getMaxSequence() {
+        return -1L ^ (-1L << sequenceBits);
+    }
+
+    /**
+     * 能表示的最后一个时间截(毫秒)，之后的ID会溢出
+     */
+    public long getMaxTimestamp() {
+        return epoch + (-1L ^ (-1L << timestampBits));
+    }
+
+    int getWorkerIdShift() {
+        return sequenceBits;
+    }
+
+    int getDatacenterIdShift() {
+        return sequenceBits + workerIdBits;
+    }
+
+    int getTimestampLeftShift() {
+        return sequenceBits + workerIdBits + datacenterIdBits;
+    }
+
+    /**
+     * 解析ID中的时间截、数据中心ID、工作机器ID和序列
+     */
+    public SnowflakeIdInfo decode(long id) {
+        return new SnowflakeIdInfo(id, (id >>> getTimestampLeftShift()) + epoch,
+                (id >>> getDatacenterIdShift()) & getMaxDatacenterId(),
+                (id >>> getWorkerIdShift()) & getMaxWorkerId(),
+                id & getMaxSequence());
+    }
+
+    /**
+     * 该毫秒生成的ID中最小的一个，与{@link #maxIdAt(long)}配合按时间范围查询ID列
+     * @param timestamp 时间截(毫秒)
+     */
+    public long minIdAt(long timestamp) {
+        return Math.max(timestamp - epoch, 0) << getTimestampLeftShift();
+    }
+
+    /**
+     * 该毫秒生成的ID中最大的一个
+     * @param timestamp 时间截(毫秒)
+     */
+    public long maxIdAt(long timestamp) {
+        return minIdAt(timestamp) | (-1L ^ (-1L << getTimestampLeftShift()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeLayout{epoch=%d, timestampBits=%d, datacenterIdBits=%d, workerIdBits=%d, sequenceBits=%d}",
+                epoch, timestampBits, datacenterIdBits, workerIdBits, sequenceBits);
+    }
+}
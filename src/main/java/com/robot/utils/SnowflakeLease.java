@@ -0,0 +1,38 @@
+package com.robot.utils;
+
+/**
+ * {@link SnowflakeLeaseCoordinator#acquire}租到的节点号。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class SnowflakeLease {
+
+    /**
+     * 节点号
+     */
+    private final long nodeId;
+    /**
+     * 该节点号上一个租约的到期或释放时间(毫秒)，从未被租用或无法得知时为0。
+     * 上一个持有者生成的ID时间截都早于这个时间
+     */
+    private final long previousExpiresAt;
+
+    public SnowflakeLease(long nodeId, long previousExpiresAt) {
+        this.nodeId = nodeId;
+        this.previousExpiresAt = previousExpiresAt;
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public long getPreviousExpiresAt() {
+        return previousExpiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeLease{nodeId=%d, previousExpiresAt=%d}", nodeId, previousExpiresAt);
+    }
+}
@@ -0,0 +1,38 @@
+package com.robot.utils;
+
+/**
+ * 雪花算法节点号的租约协调器，保证同一时刻一个节点号只租给一个持有者。
+ * <p>
+ * 节点号由数据中心ID和工作机器ID拼接而成，范围为[0, maxNodeId]。租约到期未续租的节点号可以被其他持有者租用，
+ * 释放的节点号保留释放时间作为到期时间。新持有者从{@link SnowflakeLease#getPreviousExpiresAt()}得知旧租约的到期时间，
+ * 只生成时间截晚于该时间的ID，旧持有者只生成时间截早于到期时间的ID，因此不会产生重复ID。
+ * 自带{@link SnowflakeFileLeaseCoordinator}（共享目录）和{@link SnowflakeMemoryLeaseCoordinator}（单进程，用于测试）两种实现。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public interface SnowflakeLeaseCoordinator {
+
+    /**
+     * 租用一个空闲或租约已过期的节点号。
+     *
+     * @param owner       持有者标识，每个进程唯一
+     * @param maxNodeId   最大节点号
+     * @param leaseMillis 租期(毫秒)
+     * @return 租到的节点号和该节点号上一个租约的到期时间
+     * @throws IllegalStateException 所有节点号都已被租用
+     */
+    SnowflakeLease acquire(String owner, long maxNodeId, long leaseMillis);
+
+    /**
+     * 续租，租约从当前时间起再延长leaseMillis。
+     *
+     * @return 节点号仍属于owner并续租成功时为true，已过期并被他人租用或已释放时为false
+     */
+    boolean renew(long nodeId, String owner, long leaseMillis);
+
+    /**
+     * 释放节点号，到期时间改为当前时间，节点号不属于owner时不做任何操作。
+     */
+    void release(long nodeId, String owner);
+}
@@ -0,0 +1,58 @@
+package com.robot.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 进程内的节点号租约协调器，只能协调同一进程中的生成器，用于测试和单机部署。
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class SnowflakeMemoryLeaseCoordinator implements SnowflakeLeaseCoordinator {
+
+    private final Map<Long, Lease> leases = new HashMap<>();
+
+    @Override
+    public synchronized SnowflakeLease acquire(String owner, long maxNodeId, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        for (long nodeId = 0; nodeId <= maxNodeId; nodeId++) {
+            Lease lease = leases.get(nodeId);
+            if (lease == null || lease.expiresAt <= now) {
+                leases.put(nodeId, new Lease(owner, now + leaseMillis));
+                return new SnowflakeLease(nodeId, lease == null ? 0 : lease.expiresAt);
+            }
+        }
+        throw new IllegalStateException(String.format("all %d node ids are leased", maxNodeId + 1));
+    }
+
+    @Override
+    public synchronized boolean renew(long nodeId, String owner, long leaseMillis) {
+        Lease lease = leases.get(nodeId);
+        // 已过期但还没有被他人租用时仍然可以续租
+        if (lease == null || !owner.equals(lease.owner)) {
+            return false;
+        }
+        lease.expiresAt = System.currentTimeMillis() + leaseMillis;
+        return true;
+    }
+
+    @Override
+    public synchronized void release(long nodeId, String owner) {
+        Lease lease = leases.get(nodeId);
+        if (lease != null && owner.equals(lease.owner)) {
+            // 保留释放时间，下一个持有者据此避开已生成ID的时间截
+            leases.put(nodeId, new Lease(null, Math.min(lease.expiresAt, System.currentTimeMillis())));
+        }
+    }
+
+    private static final class Lease {
+        private final String owner;
+        private long expiresAt;
+
+        private Lease(String owner, long expiresAt) {
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
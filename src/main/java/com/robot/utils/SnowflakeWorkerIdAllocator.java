@@ -0,0 +1,248 @@
+package com.robot.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过{@link SnowflakeLeaseCoordinator}自动分配数据中心ID和工作机器ID，并在后台定期续租。
+ * <p>
+ * 每个进程创建一个分配器，调用{@link #start()}租到节点号并得到生成器，进程退出前调用{@link #close()}释放节点号。
+ * 续租间隔为租期的三分之一；续租失败且租约已到期，或节点号已被他人租用时认为租约丢失，
+ * 此时{@link #isLeaseValid()}返回false并回调租约丢失监听器。
+ * <p>
+ * start()返回的生成器每次生成ID时检查租约：租约已丢失、已关闭，或ID的时间截加上可借用的毫秒数达到租约到期时间时抛出IllegalStateException，
+ * 因此旧持有者只生成时间截早于到期时间的ID；新持有者只生成时间截不早于旧租约到期时间加可借用毫秒数的ID。
+ * threadLocalBuffered()在预留时检查，已预留到缓冲中的ID仍会被取出，这些ID的时间截都在租约有效期内。
+ *
+ * <pre>
+ * SnowflakeWorkerIdAllocator allocator = new SnowflakeWorkerIdAllocator(
+ *         new SnowflakeFileLeaseCoordinator(new File("/mnt/shared/snowflake")), SnowflakeLayout.DEFAULT, 30000);
+ * SnowflakeIdWorker idWorker = allocator.start();
+ * </pre>
+ *
+ * @Author 张宝旭
+ * @Date 2026/10/18
+ */
+public class SnowflakeWorkerIdAllocator implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnowflakeWorkerIdAllocator.class);
+
+    private final SnowflakeLeaseCoordinator coordinator;
+    private final SnowflakeLayout layout;
+    private final long leaseMillis;
+    /**
+     * 持有者标识：进程名(pid@主机名) + 随机串
+     */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    private ScheduledExecutorService renewer;
+    private volatile Runnable leaseLostListener;
+    private volatile long nodeId = -1;
+    private volatile long leaseExpiresAt;
+    private volatile boolean leaseValid;
+    /**
+     * 生成器最多借用的未来毫秒数，也是到期前停止生成ID的提前量
+     */
+    private final long maxBorrowMillis = SnowflakeIdWorker.DEFAULT_MAX_BORROW_MILLIS;
+    /**
+     * 生成ID的时间截不能早于这个时间：上一个租约的到期时间加maxBorrowMillis
+     */
+    private volatile long notBefore;
+
+    /**
+     * @param coordinator 租约协调器
+     * @param layout      ID的位布局，节点号范围由数据中心ID和工作机器ID的位数决定
+     * @param leaseMillis 租期(毫秒)
+     */
+    public SnowflakeWorkerIdAllocator(SnowflakeLeaseCoordinator coordinator, SnowflakeLayout layout, long leaseMillis) {
+        if (leaseMillis < 3) {
+            throw new IllegalArgumentException("leaseMillis can't be less than 3");
+        }
+        this.coordinator = Objects.requireNonNull(coordinator, "coordinator can't be null");
+        this.layout = Objects.requireNonNull(layout, "layout can't be null");
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * 租用节点号并开始后台续租。
+     *
+     * @return 使用租到的数据中心ID和工作机器ID的生成器
+     * @throws IllegalStateException 已经启动过，或没有空闲的节点号
+     */
+    public synchronized SnowflakeIdWorker start() {
+        if (nodeId >= 0) {
+            throw new IllegalStateException("allocator already started");
+        }
+        long maxNodeId = -1L ^ (-1L << (layout.getDatacenterIdBits() + layout.getWorkerIdBits()));
+        long leasedAt = System.currentTimeMillis();
+        SnowflakeLease lease = coordinator.acquire(owner, maxNodeId, leaseMillis);
+        nodeId = lease.getNodeId();
+        notBefore = lease.getPreviousExpiresAt() > 0 ? lease.getPreviousExpiresAt() + maxBorrowMillis : 0;
+        leaseExpiresAt = leasedAt + leaseMillis;
+        leaseValid = true;
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snowflake-lease-renewer-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = leaseMillis / 3;
+        renewer.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+        LOGGER.info("租用雪花算法节点号<{}>: 数据中心ID<{}>, 工作机器ID<{}>", nodeId, getDatacenterId(), getWorkerId());
+        // 旧租约刚过期时等到旧持有者可能生成的时间截之后，一般只有几毫秒
+        waitUntil(notBefore);
+        return new LeasedIdWorker();
+    }
+
+    private void renew() {
+        long renewedAt = System.currentTimeMillis();
+        try {
+            if (coordinator.renew(nodeId, owner, leaseMillis)) {
+                leaseExpiresAt = renewedAt + leaseMillis;
+                return;
+            }
+            LOGGER.error("雪花算法节点号<{}>已被他人租用", nodeId);
+        } catch (RuntimeException e) {
+            if (System.currentTimeMillis() < leaseExpiresAt) {
+                LOGGER.warn("雪花算法节点号<{}>续租失败，租约到期前重试: <{}>", nodeId, e.getMessage());
+                return;
+            }
+            LOGGER.error("雪花算法节点号<{}>续租失败，租约已到期", nodeId, e);
+        }
+        leaseLost();
+    }
+
+    private void leaseLost() {
+        leaseValid = false;
+        renewer.shutdown();
+        Runnable listener = leaseLostListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 租约丢失时在续租线程中回调
+     */
+    public void setLeaseLostListener(Runnable leaseLostListener) {
+        this.leaseLostListener = leaseLostListener;
+    }
+
+    /**
+     * @return 租约是否有效，丢失后不会自动恢复
+     */
+    public boolean isLeaseValid() {
+        return leaseValid && System.currentTimeMillis() < leaseExpiresAt;
+    }
+
+    /**
+     * @return 节点号，未启动时为-1
+     */
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public long getDatacenterId() {
+        return nodeId >> layout.getWorkerIdBits();
+    }
+
+    public long getWorkerId() {
+        return nodeId & layout.getMaxWorkerId();
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * 停止续租并释放节点号，之后start()返回的生成器不再生成ID。
+     * 已生成的ID最多领先时钟maxBorrowMillis，等这段时间过去后才释放，下一个持有者不会生成相同时间截的ID
+     */
+    @Override
+    public synchronized void close() {
+        if (renewer == null) {
+            return;
+        }
+        renewer.shutdownNow();
+        renewer = null;
+        if (leaseValid) {
+            leaseValid = false;
+            waitUntil(System.currentTimeMillis() + maxBorrowMillis + 1);
+            coordinator.release(nodeId, owner);
+            LOGGER.info("释放雪花算法节点号<{}>", nodeId);
+        }
+    }
+
+    // 等到系统时间不早于time，期间的中断在返回后恢复
+    private static void waitUntil(long time) {
+        boolean interrupted = false;
+        long remaining;
+        while ((remaining = time - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 受租约约束的生成器，生成前后都检查租约，检查失败时已生成的ID被丢弃
+     */
+    private final class LeasedIdWorker extends SnowflakeIdWorker {
+
+        private LeasedIdWorker() {
+            super(layout, getWorkerId(), getDatacenterId(), maxBorrowMillis);
+        }
+
+        @Override
+        public long nextId() {
+            checkLease(timeGen());
+            long id = super.nextId();
+            checkIssued(id);
+            return id;
+        }
+
+        @Override
+        public void nextIds(long[] ids, int offset, int length) {
+            checkLease(timeGen());
+            super.nextIds(ids, offset, length);
+            if (length > 0) {
+                // ID递增，只需检查首尾
+                checkIssued(ids[offset]);
+                checkIssued(ids[offset + length - 1]);
+            }
+        }
+
+        // 租约有效，且借满maxBorrowMillis生成的ID也早于到期时间
+        private void checkLease(long now) {
+            if (!leaseValid) {
+                throw new IllegalStateException(String.format("lease of node id %d is lost or released", nodeId));
+            }
+            if (now + maxBorrowMillis >= leaseExpiresAt) {
+                throw new IllegalStateException(String.format("lease of node id %d expires at %d", nodeId, leaseExpiresAt));
+            }
+        }
+
+        // 生成期间租约可能丢失或线程被挂起，按ID中的时间截再检查一次
+        private void checkIssued(long id) {
+            long timestamp = (id >>> layout.getTimestampLeftShift()) + layout.getEpoch();
+            if (timestamp < notBefore) {
+                throw new IllegalStateException(String.format("timestamp %d is before the previous lease of node id %d ends at %d",
+                        timestamp, nodeId, notBefore));
+            }
+            if (!leaseValid || timestamp >= leaseExpiresAt) {
+                throw new IllegalStateException(String.format("lease of node id %d expired before id was issued", nodeId));
+            }
+        }
+    }
+}